@@ -1,6 +1,7 @@
 package com.modernchat;
 
 import com.modernchat.common.ChatMode;
+import com.modernchat.common.FloodPolicy;
 import com.modernchat.common.FontStyle;
 import com.modernchat.common.Sfx;
 import net.runelite.client.config.Alpha;
@@ -92,6 +93,14 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
     )
     String messageHistorySection = "messageHistorySection";
 
+    @ConfigSection(
+        name = "Performance",
+        description = "Tuning for busy worlds and large chat histories",
+        position = 9,
+        closedByDefault = true
+    )
+    String performanceSection = "performanceSection";
+
     /* ------------ Feature: Example ------------ */
 
     @ConfigItem(
@@ -170,11 +179,23 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
         return true;
     }
 
+    @ConfigItem(
+        keyName = Keys.featureRedesign_MessageContainer_TimestampSeconds,
+        name = "Timestamp Seconds",
+        description = "Include seconds in message timestamps",
+        position = 5,
+        section = modernChatSection
+    )
+    @Override
+    default boolean featureRedesign_MessageContainer_TimestampSeconds() {
+        return false;
+    }
+
     @ConfigItem(
         keyName = Keys.featureRedesign_Resizeable,
         name = "Resizeable",
         description = "Allow resizing the chat window",
-        position = 5,
+        position = 6,
         section = modernChatSection
     )
     @Override
@@ -186,7 +207,7 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
         keyName = Keys.featureRedesign_MessageContainer_Scrollable,
         name = "Scrollable",
         description = "Allow scrolling in the message container",
-        position = 6,
+        position = 7,
         section = modernChatSection
     )
     @Override
@@ -198,7 +219,7 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
         keyName = Keys.featureRedesign_ClickOutsideToClose,
         name = "Click Outside Closes",
         description = "Close chat by clicking outside the chat area",
-        position = 7,
+        position = 8,
         section = modernChatSection
     )
     @Override
@@ -210,7 +231,7 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
         keyName = Keys.featureRedesign_ShowNotificationBadge,
         name = "Show Notification Badge",
         description = "Show a notification badge on the tab button when there are unread messages",
-        position = 8,
+        position = 9,
         section = modernChatSection
     )
     @Override
@@ -222,7 +243,7 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
         keyName = Keys.featureRedesign_AllowClickThrough,
         name = "Allow Click-Through",
         description = "Allow clicking through the chat overlay to interact with game elements",
-        position = 9,
+        position = 10,
         section = modernChatSection
     )
     @Override
@@ -234,7 +255,7 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
         keyName = Keys.featureRedesign_AutoSelectPrivateTab,
         name = "Auto Select Private Tab",
         description = "Automatically select the private chat tab when receiving a private message",
-        position = 10,
+        position = 11,
         section = modernChatSection
     )
     @Override
@@ -246,7 +267,7 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
         keyName = Keys.featureRedesign_AutoClosePrivateTab,
         name = "Auto Close Private Tab",
         description = "Automatically close private message tabs when sending a message",
-        position = 11,
+        position = 12,
         section = modernChatSection
     )
     @Override
@@ -258,7 +279,7 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
         keyName = Keys.featureRedesign_ShowNpc,
         name = "Show NPC Messages",
         description = "Show NPC messages in the chat",
-        position = 12,
+        position = 13,
         section = modernChatSection
     )
     @Override
@@ -270,7 +291,7 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
         keyName = Keys.featureRedesign_GameTabEnabled,
         name = "Game Tab",
         description = "Show a dedicated Game tab for game messages",
-        position = 13,
+        position = 14,
         section = modernChatSection
     )
     @Override
@@ -282,7 +303,7 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
         keyName = Keys.featureRedesign_TradeTabEnabled,
         name = "Trade Tab",
         description = "Show a dedicated Trade tab for trade messages",
-        position = 14,
+        position = 15,
         section = modernChatSection
     )
     @Override
@@ -294,7 +315,7 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
         keyName = Keys.featureRedesign_ShowTabIcons,
         name = "Show Tab Icons",
         description = "Show player icons (ironman, moderator, etc.) in private message tab titles",
-        position = 15,
+        position = 16,
         section = modernChatSection
     )
     @Override
@@ -1943,4 +1964,171 @@ public interface ModernChatConfig extends Config, ModernChatConfigBase
     default boolean featureNotify_OnClan() {
         return false;
     }
+
+    /* ------------ Performance ------------ */
+
+    @ConfigItem(
+        keyName = Keys.performance_BackgroundIngest,
+        name = "Background Processing",
+        description = "Filter and parse incoming messages on a background thread instead of the client thread. Helps with stutter during mass events",
+        position = 0,
+        section = performanceSection
+    )
+    @Override
+    default boolean performance_BackgroundIngest() {
+        return false;
+    }
+
+    @Range(max = 16384)
+    @ConfigItem(
+        keyName = Keys.performance_ParseCacheSize,
+        name = "Parse Cache Size",
+        description = "Number of recently parsed messages to keep so exact repeats skip parsing (0 to disable)",
+        position = 1,
+        section = performanceSection
+    )
+    @Override
+    default int performance_ParseCacheSize() {
+        return 1024;
+    }
+
+    @ConfigItem(
+        keyName = Keys.performance_FloodPolicy,
+        name = "Flood Protection",
+        description = "How to shed public, game and other traffic above the message budget. Private, clan and friends chat are never shed",
+        position = 2,
+        section = performanceSection
+    )
+    @Override
+    default FloodPolicy performance_FloodPolicy() {
+        return FloodPolicy.OFF;
+    }
+
+    @Range(min = 1, max = 500)
+    @ConfigItem(
+        keyName = Keys.performance_FloodBudget,
+        name = "Flood Budget",
+        description = "Messages per second allowed for each message type before flood protection kicks in",
+        position = 3,
+        section = performanceSection
+    )
+    @Override
+    default int performance_FloodBudget() {
+        return 20;
+    }
+
+    @Range(min = 2, max = 100)
+    @ConfigItem(
+        keyName = Keys.performance_FloodSampleRate,
+        name = "Flood Sample Rate",
+        description = "With the Sample policy, keep every Nth message over the budget",
+        position = 4,
+        section = performanceSection
+    )
+    @Override
+    default int performance_FloodSampleRate() {
+        return 5;
+    }
+
+    @Range(min = 100, max = 20000)
+    @ConfigItem(
+        keyName = Keys.performance_AllTabHistory,
+        name = "All Tab History",
+        description = "Number of lines kept in the All tab",
+        position = 5,
+        section = performanceSection
+    )
+    @Override
+    default int performance_AllTabHistory() {
+        return 2000;
+    }
+
+    @Range(min = 20, max = 20000)
+    @ConfigItem(
+        keyName = Keys.performance_TabHistory,
+        name = "Tab History",
+        description = "Number of lines kept in each of the other tabs, including private message tabs",
+        position = 6,
+        section = performanceSection
+    )
+    @Override
+    default int performance_TabHistory() {
+        return 1000;
+    }
+
+    @Range(min = 100, max = 50000)
+    @ConfigItem(
+        keyName = Keys.performance_PrivateHistory,
+        name = "Private History",
+        description = "Number of private message lines kept across all conversations, the oldest are dropped first",
+        position = 7,
+        section = performanceSection
+    )
+    @Override
+    default int performance_PrivateHistory() {
+        return 5000;
+    }
+
+    @ConfigItem(
+        keyName = Keys.performance_ChatArchive,
+        name = "Chat Archive",
+        description = "Save chat to disk and replay recent history into the tabs on login",
+        position = 8,
+        section = performanceSection
+    )
+    @Override
+    default boolean performance_ChatArchive() {
+        return false;
+    }
+
+    @Range(min = 0, max = 5000)
+    @ConfigItem(
+        keyName = Keys.performance_ArchiveReplayLines,
+        name = "Archive Replay Lines",
+        description = "Number of archived lines replayed into the tabs on login",
+        position = 9,
+        section = performanceSection
+    )
+    @Override
+    default int performance_ArchiveReplayLines() {
+        return 500;
+    }
+
+    @Range(min = 0, max = 1440)
+    @ConfigItem(
+        keyName = Keys.performance_PrivateIdleMinutes,
+        name = "Idle Private Tab Release",
+        description = "Minutes before closed private tabs are released and idle ones drop their layout caches, 0 to keep them",
+        position = 10,
+        section = performanceSection
+    )
+    @Override
+    default int performance_PrivateIdleMinutes() {
+        return 10;
+    }
+
+    @Range(min = 0, max = 64)
+    @ConfigItem(
+        keyName = Keys.performance_RowTileCacheMb,
+        name = "Row Tile Cache (MB)",
+        description = "Memory shared by all chat views for pre-rendered rows that are blitted instead of redrawing text each frame, 0 to draw text directly. Not used with subpixel (LCD) text antialiasing",
+        position = 11,
+        section = performanceSection
+    )
+    @Override
+    default int performance_RowTileCacheMb() {
+        return 0;
+    }
+
+    @ConfigItem(
+        keyName = Keys.performance_RetainedPane,
+        name = "Retained Message Pane",
+        description = "Keep the message pane in an offscreen image and repaint it only when its content, scroll or size changes",
+        position = 12,
+        section = performanceSection
+    )
+    @Override
+    default boolean performance_RetainedPane() {
+        return false;
+    }
 }
@@ -5,6 +5,7 @@ import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.modernchat.common.ChatMode;
+import com.modernchat.common.FloodPolicy;
 import com.modernchat.common.FontStyle;
 import com.modernchat.common.Sfx;
 import com.modernchat.feature.ChatRedesignFeature;
@@ -57,6 +58,7 @@ public interface ModernChatConfigBase extends
         String featureRedesign_OpenTabOnIncomingPM = "featureRedesign_OpenTabOnIncomingPM";
         String featureRedesign_MessageContainer_PrefixChatType = "featureRedesign_MessageContainer_PrefixChatType";
         String featureRedesign_MessageContainer_ShowTimestamp = "featureRedesign_MessageContainer_ShowTimestamp";
+        String featureRedesign_MessageContainer_TimestampSeconds = "featureRedesign_MessageContainer_TimestampSeconds";
         String featureRedesign_Resizeable = "featureRedesign_Resizeable";
         String featureRedesign_MessageContainer_Scrollable = "featureRedesign_MessageContainer_Scrollable";
         String featureRedesign_ClickOutsideToClose = "featureRedesign_ClickOutsideToClose";
@@ -138,6 +140,21 @@ public interface ModernChatConfigBase extends
         String filters_SpamCorpusEnabled = "filters_SpamCorpusEnabled";
         String filters_VanillaTabFilterEnabled = "filters_VanillaTabFilterEnabled";
 
+        // Performance
+        String performance_BackgroundIngest = "performance_BackgroundIngest";
+        String performance_ParseCacheSize = "performance_ParseCacheSize";
+        String performance_FloodPolicy = "performance_FloodPolicy";
+        String performance_FloodBudget = "performance_FloodBudget";
+        String performance_FloodSampleRate = "performance_FloodSampleRate";
+        String performance_AllTabHistory = "performance_AllTabHistory";
+        String performance_TabHistory = "performance_TabHistory";
+        String performance_PrivateHistory = "performance_PrivateHistory";
+        String performance_ChatArchive = "performance_ChatArchive";
+        String performance_ArchiveReplayLines = "performance_ArchiveReplayLines";
+        String performance_PrivateIdleMinutes = "performance_PrivateIdleMinutes";
+        String performance_RowTileCacheMb = "performance_RowTileCacheMb";
+        String performance_RetainedPane = "performance_RetainedPane";
+
         // General
         String general_AnchorPrivateChat = "general_AnchorPrivateChat";
         String general_AnchorPrivateChatOffsetX = "general_AnchorPrivateChatOffsetX";
@@ -235,6 +252,7 @@ public interface ModernChatConfigBase extends
         FEATURE_REDESIGN_OPEN_TAB_ON_INCOMING_PM(Keys.featureRedesign_OpenTabOnIncomingPM, Kind.BOOL, ModernChatConfigBase::featureRedesign_OpenTabOnIncomingPM),
         FEATURE_REDESIGN_PREFIX_CHAT_TYPE(Keys.featureRedesign_MessageContainer_PrefixChatType, Kind.BOOL, ModernChatConfigBase::featureRedesign_MessageContainer_PrefixChatType),
         FEATURE_REDESIGN_SHOW_TIMESTAMP(Keys.featureRedesign_MessageContainer_ShowTimestamp, Kind.BOOL, ModernChatConfigBase::featureRedesign_MessageContainer_ShowTimestamp),
+        FEATURE_REDESIGN_TIMESTAMP_SECONDS(Keys.featureRedesign_MessageContainer_TimestampSeconds, Kind.BOOL, ModernChatConfigBase::featureRedesign_MessageContainer_TimestampSeconds),
         FEATURE_REDESIGN_RESIZEABLE(Keys.featureRedesign_Resizeable, Kind.BOOL, ModernChatConfigBase::featureRedesign_Resizeable),
         FEATURE_REDESIGN_SCROLLABLE(Keys.featureRedesign_MessageContainer_Scrollable, Kind.BOOL, ModernChatConfigBase::featureRedesign_MessageContainer_Scrollable),
         FEATURE_REDESIGN_CLICK_OUTSIDE_TO_CLOSE(Keys.featureRedesign_ClickOutsideToClose, Kind.BOOL, ModernChatConfigBase::featureRedesign_ClickOutsideToClose),
@@ -320,6 +338,21 @@ public interface ModernChatConfigBase extends
         FILTERS_SPAM_CORPUS_ENABLED(Keys.filters_SpamCorpusEnabled, Kind.BOOL, ModernChatConfigBase::filters_SpamCorpusEnabled),
         FILTERS_VANILLA_TAB_FILTER_ENABLED(Keys.filters_VanillaTabFilterEnabled, Kind.BOOL, ModernChatConfigBase::filters_VanillaTabFilterEnabled),
 
+        // ---- Performance ----
+        PERFORMANCE_BACKGROUND_INGEST(Keys.performance_BackgroundIngest, Kind.BOOL, ModernChatConfigBase::performance_BackgroundIngest),
+        PERFORMANCE_PARSE_CACHE_SIZE(Keys.performance_ParseCacheSize, Kind.INT, ModernChatConfigBase::performance_ParseCacheSize),
+        PERFORMANCE_FLOOD_POLICY(Keys.performance_FloodPolicy, FloodPolicy.class, ModernChatConfigBase::performance_FloodPolicy),
+        PERFORMANCE_FLOOD_BUDGET(Keys.performance_FloodBudget, Kind.INT, ModernChatConfigBase::performance_FloodBudget),
+        PERFORMANCE_FLOOD_SAMPLE_RATE(Keys.performance_FloodSampleRate, Kind.INT, ModernChatConfigBase::performance_FloodSampleRate),
+        PERFORMANCE_ALL_TAB_HISTORY(Keys.performance_AllTabHistory, Kind.INT, ModernChatConfigBase::performance_AllTabHistory),
+        PERFORMANCE_TAB_HISTORY(Keys.performance_TabHistory, Kind.INT, ModernChatConfigBase::performance_TabHistory),
+        PERFORMANCE_PRIVATE_HISTORY(Keys.performance_PrivateHistory, Kind.INT, ModernChatConfigBase::performance_PrivateHistory),
+        PERFORMANCE_CHAT_ARCHIVE(Keys.performance_ChatArchive, Kind.BOOL, ModernChatConfigBase::performance_ChatArchive),
+        PERFORMANCE_ARCHIVE_REPLAY_LINES(Keys.performance_ArchiveReplayLines, Kind.INT, ModernChatConfigBase::performance_ArchiveReplayLines),
+        PERFORMANCE_PRIVATE_IDLE_MINUTES(Keys.performance_PrivateIdleMinutes, Kind.INT, ModernChatConfigBase::performance_PrivateIdleMinutes),
+        PERFORMANCE_ROW_TILE_CACHE_MB(Keys.performance_RowTileCacheMb, Kind.INT, ModernChatConfigBase::performance_RowTileCacheMb),
+        PERFORMANCE_RETAINED_PANE(Keys.performance_RetainedPane, Kind.BOOL, ModernChatConfigBase::performance_RetainedPane),
+
         // ---- General ----
         GENERAL_ANCHOR_PM(Keys.general_AnchorPrivateChat, Kind.BOOL, ModernChatConfigBase::general_AnchorPrivateChat),
         GENERAL_ANCHOR_PM_OFFSET_X(Keys.general_AnchorPrivateChatOffsetX, Kind.INT, ModernChatConfigBase::general_AnchorPrivateChatOffsetX),
@@ -433,6 +466,19 @@ public interface ModernChatConfigBase extends
     boolean filters_AreaMuteEnabled();
     boolean filters_SpamCorpusEnabled();
     boolean filters_VanillaTabFilterEnabled();
+    boolean performance_BackgroundIngest();
+    int performance_ParseCacheSize();
+    FloodPolicy performance_FloodPolicy();
+    int performance_FloodBudget();
+    int performance_FloodSampleRate();
+    int performance_AllTabHistory();
+    int performance_TabHistory();
+    int performance_PrivateHistory();
+    boolean performance_ChatArchive();
+    int performance_ArchiveReplayLines();
+    int performance_PrivateIdleMinutes();
+    int performance_RowTileCacheMb();
+    boolean performance_RetainedPane();
     boolean general_AnchorPrivateChat();
     int general_AnchorPrivateChatOffsetX();
     int general_AnchorPrivateChatOffsetY();
@@ -524,6 +570,7 @@ public interface ModernChatConfigBase extends
         @Override public boolean featureRedesign_OpenTabOnIncomingPM() { return getBool(Keys.featureRedesign_OpenTabOnIncomingPM, DEFAULTS.featureRedesign_OpenTabOnIncomingPM()); }
         @Override public boolean featureRedesign_MessageContainer_PrefixChatType() { return getBool(Keys.featureRedesign_MessageContainer_PrefixChatType, DEFAULTS.featureRedesign_MessageContainer_PrefixChatType()); }
         @Override public boolean featureRedesign_MessageContainer_ShowTimestamp() { return getBool(Keys.featureRedesign_MessageContainer_ShowTimestamp, DEFAULTS.featureRedesign_MessageContainer_ShowTimestamp()); }
+        @Override public boolean featureRedesign_MessageContainer_TimestampSeconds() { return getBool(Keys.featureRedesign_MessageContainer_TimestampSeconds, DEFAULTS.featureRedesign_MessageContainer_TimestampSeconds()); }
         @Override public boolean featureRedesign_Resizeable() { return getBool(Keys.featureRedesign_Resizeable, DEFAULTS.featureRedesign_Resizeable()); }
         @Override public boolean featureRedesign_MessageContainer_Scrollable() { return getBool(Keys.featureRedesign_MessageContainer_Scrollable, DEFAULTS.featureRedesign_MessageContainer_Scrollable()); }
         @Override public boolean featureRedesign_ClickOutsideToClose() { return getBool(Keys.featureRedesign_ClickOutsideToClose, DEFAULTS.featureRedesign_ClickOutsideToClose()); }
@@ -609,6 +656,21 @@ public interface ModernChatConfigBase extends
         @Override public boolean filters_SpamCorpusEnabled() { return getBool(Keys.filters_SpamCorpusEnabled, DEFAULTS.filters_SpamCorpusEnabled()); }
         @Override public boolean filters_VanillaTabFilterEnabled() { return getBool(Keys.filters_VanillaTabFilterEnabled, DEFAULTS.filters_VanillaTabFilterEnabled()); }
 
+        // Performance
+        @Override public boolean performance_BackgroundIngest() { return getBool(Keys.performance_BackgroundIngest, DEFAULTS.performance_BackgroundIngest()); }
+        @Override public int performance_ParseCacheSize() { return getInt(Keys.performance_ParseCacheSize, DEFAULTS.performance_ParseCacheSize()); }
+        @Override public FloodPolicy performance_FloodPolicy() { return getEnum(Keys.performance_FloodPolicy, DEFAULTS.performance_FloodPolicy(), FloodPolicy.class); }
+        @Override public int performance_FloodBudget() { return getInt(Keys.performance_FloodBudget, DEFAULTS.performance_FloodBudget()); }
+        @Override public int performance_FloodSampleRate() { return getInt(Keys.performance_FloodSampleRate, DEFAULTS.performance_FloodSampleRate()); }
+        @Override public int performance_AllTabHistory() { return getInt(Keys.performance_AllTabHistory, DEFAULTS.performance_AllTabHistory()); }
+        @Override public int performance_TabHistory() { return getInt(Keys.performance_TabHistory, DEFAULTS.performance_TabHistory()); }
+        @Override public int performance_PrivateHistory() { return getInt(Keys.performance_PrivateHistory, DEFAULTS.performance_PrivateHistory()); }
+        @Override public boolean performance_ChatArchive() { return getBool(Keys.performance_ChatArchive, DEFAULTS.performance_ChatArchive()); }
+        @Override public int performance_ArchiveReplayLines() { return getInt(Keys.performance_ArchiveReplayLines, DEFAULTS.performance_ArchiveReplayLines()); }
+        @Override public int performance_PrivateIdleMinutes() { return getInt(Keys.performance_PrivateIdleMinutes, DEFAULTS.performance_PrivateIdleMinutes()); }
+        @Override public int performance_RowTileCacheMb() { return getInt(Keys.performance_RowTileCacheMb, DEFAULTS.performance_RowTileCacheMb()); }
+        @Override public boolean performance_RetainedPane() { return getBool(Keys.performance_RetainedPane, DEFAULTS.performance_RetainedPane()); }
+
         // General colors & options
         @Override public boolean general_AnchorPrivateChat() { return getBool(Keys.general_AnchorPrivateChat, DEFAULTS.general_AnchorPrivateChat()); }
         @Override public int general_AnchorPrivateChatOffsetX() { return getInt(Keys.general_AnchorPrivateChatOffsetX, DEFAULTS.general_AnchorPrivateChatOffsetX()); }
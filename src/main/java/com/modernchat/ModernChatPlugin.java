@@ -24,16 +24,22 @@ import com.modernchat.feature.NotificationChatFeature;
 import com.modernchat.feature.PeekChatFeature;
 import com.modernchat.feature.ToggleChatFeature;
 import com.modernchat.feature.command.CommandsChatFeature;
+import com.modernchat.service.ChatArchiveService;
+import com.modernchat.service.ChatExportService;
+import com.modernchat.service.ChatIngestService;
 import com.modernchat.service.FilterService;
+import com.modernchat.service.FloodControlService;
 import com.modernchat.service.FontService;
 import com.modernchat.service.ForceRecolorService;
 import com.modernchat.service.ImageService;
 import com.modernchat.service.MessageFilterService;
+import com.modernchat.service.MessageParseService;
 import com.modernchat.service.MessageService;
 import com.modernchat.service.PrivateChatService;
 import com.modernchat.service.ProfileService;
 import com.modernchat.service.SoundService;
 import com.modernchat.service.SpamFilterService;
+import com.modernchat.service.TimestampService;
 import com.modernchat.service.TutorialService;
 import com.modernchat.util.ChatUtil;
 import com.modernchat.util.ClientUtil;
@@ -120,6 +126,12 @@ public class ModernChatPlugin extends Plugin {
     @Inject private SpamFilterService spamFilterService;
 	@Inject private ForceRecolorService forceRecolorService;
 	@Inject private MessageFilterService messageFilterService;
+	@Inject private TimestampService timestampService;
+	@Inject private MessageParseService messageParseService;
+	@Inject private ChatIngestService chatIngestService;
+	@Inject private FloodControlService floodControlService;
+	@Inject private ChatArchiveService chatArchiveService;
+	@Inject private ChatExportService chatExportService;
 	@Inject private KeyRemappingService keyRemappingService;
 	@Inject private WidgetBucket widgetBucket;
 	@Inject private ChatProxy chatProxy;
@@ -163,6 +175,12 @@ public class ModernChatPlugin extends Plugin {
 		imageService.startUp();
 		forceRecolorService.startUp();
 		messageFilterService.startUp();
+		timestampService.startUp();
+		messageParseService.startUp();
+		chatIngestService.startUp();
+		floodControlService.startUp();
+		chatArchiveService.startUp();
+		chatExportService.startUp();
 
 		BufferedImage icon = ImageUtil.loadImageResource(getClass(), "/com/modernchat/images/icon.png");
 		if (icon == null) {
@@ -240,6 +258,12 @@ public class ModernChatPlugin extends Plugin {
 		imageService.shutDown();
 		forceRecolorService.shutDown();
 		messageFilterService.shutDown();
+		messageParseService.shutDown();
+		timestampService.shutDown();
+		chatIngestService.shutDown();
+		floodControlService.shutDown();
+		chatArchiveService.shutDown();
+		chatExportService.shutDown();
 		keyRemappingService.shutDown();
 
 		if (features != null) {
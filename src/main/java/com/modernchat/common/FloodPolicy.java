@@ -0,0 +1,9 @@
+package com.modernchat.common;
+
+public enum FloodPolicy
+{
+    OFF,
+    DROP_OLDEST,
+    SAMPLE,
+    COLLAPSE,
+}
@@ -0,0 +1,115 @@
+package com.modernchat.common;
+
+import com.modernchat.util.StringUtil;
+import lombok.Value;
+import net.runelite.api.Client;
+import net.runelite.api.FriendsChatManager;
+import net.runelite.api.MessageNode;
+import net.runelite.api.Player;
+import net.runelite.api.clan.ClanChannel;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.gameval.VarbitID;
+import net.runelite.client.util.Text;
+
+import javax.annotation.Nullable;
+
+/**
+ * Client state facts captured for a chat message on the client thread. Message filters only
+ * read from the snapshot so they can safely run off the client thread. The costly facts are
+ * only captured when an enabled filter asks for them, otherwise they read as false and -1.
+ */
+@Value
+public class MessageSnapshot
+{
+    /** Friend, friends chat and clan membership of the sender */
+    public static final int FACT_SOCIAL = 1;
+    /** Region of the sender, needs a scan of the players in view */
+    public static final int FACT_REGION = 1 << 1;
+
+    /** Detached copy of the event, so later mutations of the event don't leak in */
+    ChatMessage message;
+    int messageId;
+    String nodeName;
+    String nodeValue;
+
+    /** Sanitized sender name, empty for messages without a sender */
+    String senderName;
+    boolean localPlayerPresent;
+    @Nullable String localPlayerName;
+    boolean fromLocalPlayer;
+    boolean friend;
+    boolean friendsChatMember;
+    boolean clanMember;
+    /** Region of the sender if visible, otherwise the local player's region, or -1 if logged out */
+    int region;
+    /** Vanilla Game tab filter dropdown value */
+    int gameFilter;
+
+    /**
+     * Capture the snapshot, must be called on the client thread.
+     *
+     * @param facts the {@code FACT_} flags of the optional facts to look up
+     */
+    public static MessageSnapshot capture(Client client, ChatMessage e, int facts) {
+        MessageNode node = e.getMessageNode();
+        ChatMessage copy = new ChatMessage(node, e.getType(), e.getName(), e.getMessage(), e.getSender(), e.getTimestamp());
+
+        Player local = client.getLocalPlayer();
+        String localName = local != null ? local.getName() : null;
+        String name = e.getName() != null ? Text.sanitize(e.getName()) : "";
+
+        boolean fromLocal = false;
+        boolean friend = false;
+        boolean friendsChatMember = false;
+        boolean clanMember = false;
+        int region = -1;
+
+        if (local != null && (facts & FACT_REGION) != 0) {
+            region = local.getWorldLocation().getRegionID();
+        }
+
+        if (!StringUtil.isNullOrEmpty(name)) {
+            fromLocal = name.equalsIgnoreCase(localName);
+        }
+
+        if (!StringUtil.isNullOrEmpty(name) && (facts & FACT_SOCIAL) != 0) {
+            friend = client.isFriended(name, false);
+
+            FriendsChatManager friendsChatManager = client.getFriendsChatManager();
+            friendsChatMember = friendsChatManager != null && friendsChatManager.findByName(name) != null;
+
+            ClanChannel clanChannel = client.getClanChannel();
+            clanMember = clanChannel != null && clanChannel.findMember(name) != null;
+            if (!clanMember) {
+                clanChannel = client.getGuestClanChannel();
+                clanMember = clanChannel != null && clanChannel.findMember(name) != null;
+            }
+        }
+
+        if (!StringUtil.isNullOrEmpty(name) && (facts & FACT_REGION) != 0) {
+            if (local != null && !fromLocal) {
+                for (Player p : client.getTopLevelWorldView().players()) {
+                    if (name.equalsIgnoreCase(p.getName())) {
+                        region = p.getWorldLocation().getRegionID();
+                        break;
+                    }
+                }
+            }
+        }
+
+        return new MessageSnapshot(
+            copy,
+            node != null ? node.getId() : -1,
+            node != null ? node.getName() : e.getName(),
+            node != null ? node.getValue() : e.getMessage(),
+            name,
+            local != null,
+            localName,
+            fromLocal,
+            friend,
+            friendsChatMember,
+            clanMember,
+            region,
+            client.getVarbitValue(VarbitID.GAME_FILTER));
+    }
+}
@@ -0,0 +1,201 @@
+package com.modernchat.draw;
+
+import com.modernchat.util.InternPool;
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Columnar form of a line's segments: the text of every segment concatenated into one string
+ * plus packed end offsets, ARGB colours and kinds. Segment objects are only created by
+ * {@link #inflate()} while a line is being wrapped for display, so long scrollback costs a few
+ * arrays per line instead of an object graph. The per-minute timestamp segment is shared and
+ * kept as-is.
+ */
+public final class CompactSegments
+{
+    private static final byte TEXT = 0;
+    private static final byte PREFIX = 1;
+    private static final byte IMAGE = 2;
+
+    private static final int[] NO_INTS = new int[0];
+    private static final byte[] NO_BYTES = new byte[0];
+
+    public static final CompactSegments EMPTY = new CompactSegments(null, "", NO_INTS, NO_INTS, NO_BYTES);
+
+    @Getter @Nullable private final TimestampSegment timestamp;
+    private final String text;
+    // Per segment; image segments keep their id in place of an end offset
+    private final int[] ends;
+    private final int[] colors;
+    private final byte[] kinds;
+
+    private CompactSegments(@Nullable TimestampSegment timestamp, String text, int[] ends, int[] colors, byte[] kinds) {
+        this.timestamp = timestamp;
+        this.text = text;
+        this.ends = ends;
+        this.colors = colors;
+        this.kinds = kinds;
+    }
+
+    public static CompactSegments of(List<TextSegment> segs) {
+        if (segs == null || segs.isEmpty())
+            return EMPTY;
+
+        TimestampSegment timestamp = null;
+        int n = 0;
+        for (TextSegment seg : segs) {
+            if (seg instanceof TimestampSegment && timestamp == null && n == 0)
+                timestamp = (TimestampSegment) seg;
+            else
+                n++;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        int[] ends = new int[n];
+        int[] colors = new int[n];
+        byte[] kinds = new byte[n];
+        int i = 0;
+        for (TextSegment seg : segs) {
+            if (seg == timestamp)
+                continue;
+
+            colors[i] = seg.getColor() != null ? seg.getColor().getRGB() : 0;
+            if (seg instanceof ImageSegment) {
+                kinds[i] = IMAGE;
+                ends[i] = ((ImageSegment) seg).getId();
+            } else {
+                kinds[i] = seg instanceof PrefixSegment ? PREFIX : TEXT;
+                if (seg.getText() != null)
+                    sb.append(seg.getText());
+                ends[i] = sb.length();
+            }
+            i++;
+        }
+        return new CompactSegments(timestamp, sb.toString(), ends, colors, kinds);
+    }
+
+    /**
+     * Number of segments including the timestamp.
+     */
+    public int size() {
+        return kinds.length + (timestamp != null ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Length of the text of every segment except the timestamp and images.
+     */
+    public int textLength() {
+        return text.length();
+    }
+
+    public int imageCount() {
+        int count = 0;
+        for (byte kind : kinds) {
+            if (kind == IMAGE)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Appends the message text, optionally with the type prefix.
+     */
+    public void appendText(StringBuilder sb, boolean includePrefix) {
+        int start = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            if (kinds[i] == IMAGE)
+                continue;
+            if (includePrefix || kinds[i] != PREFIX)
+                sb.append(text, start, ends[i]);
+            start = ends[i];
+        }
+    }
+
+    /**
+     * Text of the type prefix segments, or null if the line has none.
+     */
+    @Nullable
+    public String prefixText() {
+        StringBuilder sb = null;
+        int start = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            if (kinds[i] == IMAGE)
+                continue;
+            if (kinds[i] == PREFIX) {
+                if (sb == null)
+                    sb = new StringBuilder();
+                sb.append(text, start, ends[i]);
+            }
+            start = ends[i];
+        }
+        return sb != null ? sb.toString() : null;
+    }
+
+    /**
+     * Appends the message as Jagex markup without the timestamp and type prefix, so it parses
+     * back into the same segments.
+     */
+    public void appendMarkup(StringBuilder sb) {
+        int start = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+                case IMAGE:
+                    sb.append("<img=").append(ends[i]).append('>');
+                    continue;
+                case TEXT:
+                    sb.append("<col=").append(String.format("%06x", colors[i] & 0xFFFFFF)).append('>');
+                    for (int c = start; c < ends[i]; c++) {
+                        char ch = text.charAt(c);
+                        if (ch == '<')
+                            sb.append("<lt>");
+                        else if (ch == '>')
+                            sb.append("<gt>");
+                        else
+                            sb.append(ch);
+                    }
+                    sb.append("</col>");
+                    break;
+            }
+            start = ends[i];
+        }
+    }
+
+    /**
+     * Creates the segment objects. The list is new on every call and may be kept by the caller.
+     */
+    public List<TextSegment> inflate() {
+        if (isEmpty())
+            return Collections.emptyList();
+
+        List<TextSegment> out = new ArrayList<>(size());
+        if (timestamp != null)
+            out.add(timestamp);
+
+        int start = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            Color color = InternPool.color(colors[i]);
+            switch (kinds[i]) {
+                case IMAGE:
+                    out.add(new ImageSegment(ends[i], color));
+                    continue;
+                case PREFIX:
+                    out.add(new PrefixSegment(text.substring(start, ends[i]), color));
+                    break;
+                default:
+                    out.add(new TextSegment(text.substring(start, ends[i]), color));
+                    break;
+            }
+            start = ends[i];
+        }
+        return out;
+    }
+}
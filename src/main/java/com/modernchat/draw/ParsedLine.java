@@ -0,0 +1,38 @@
+package com.modernchat.draw;
+
+import lombok.Value;
+import net.runelite.api.ChatMessageType;
+
+import java.util.List;
+
+/**
+ * Immutable result of parsing a single chat line into styled segments. A parsed line is
+ * produced once per message and shared by every container the message is routed to; the
+ * per-container state (wrap cache) lives in {@link RichLine}. Segments are stored compactly
+ * and only inflated into objects when a container wraps the line for display.
+ */
+@Value
+public class ParsedLine
+{
+    CompactSegments body;
+    ChatMessageType type;
+    long timestamp;
+    String sender;
+    String receiver;
+    String targetName;
+    /** Key for duplicate detection: name + original message */
+    String duplicateKey;
+    /** True if this message has a collapse count suffix like " (2)" */
+    boolean collapsed;
+
+    /**
+     * Creates the styled segments; a new list on every call, keep it only while displayed.
+     */
+    public List<TextSegment> getSegs() {
+        return body.inflate();
+    }
+
+    public boolean isEmpty() {
+        return body.isEmpty();
+    }
+}
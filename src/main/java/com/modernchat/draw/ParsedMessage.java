@@ -0,0 +1,37 @@
+package com.modernchat.draw;
+
+import com.modernchat.overlay.MessageContainerConfig;
+import lombok.Value;
+import net.runelite.api.ChatMessageType;
+
+import java.util.List;
+
+/**
+ * A chat message parsed once for a given container config and backdrop. A {@code <br>} tag
+ * in the source splits the message into several {@link ParsedLine}s.
+ * <p>
+ * The raw inputs are kept so a container with a different config or backdrop can re-parse.
+ */
+@Value
+public class ParsedMessage
+{
+    String text;
+    ChatMessageType type;
+    long timestamp;
+    String sender;
+    String receiver;
+    String targetName;
+    String prefix;
+    String duplicateKey;
+    boolean collapsed;
+
+    // Parse context
+    MessageContainerConfig config;
+    boolean transparentBackdrop;
+
+    List<ParsedLine> lines;
+
+    public boolean isParsedFor(MessageContainerConfig config, boolean transparentBackdrop) {
+        return this.config == config && this.transparentBackdrop == transparentBackdrop;
+    }
+}
@@ -1,36 +1,71 @@
 package com.modernchat.draw;
 
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import net.runelite.api.ChatMessageType;
 
-import java.util.ArrayList;
 import java.util.List;
 
-@Data
+/**
+ * A container's wrap cache for a {@link ParsedLine}, created only while the line is wrapped.
+ * The parsed segments are shared between containers, only the wrap cache depends on the width.
+ */
 public final class RichLine
 {
-    private final List<TextSegment> segs = new ArrayList<>();
-    private ChatMessageType type = ChatMessageType.GAMEMESSAGE;
-    private long timestamp;
-    private String sender;
-    private String receiver;
-    private String targetName;
-    /** Key for duplicate detection: name + original message */
-    private String duplicateKey;
-    /** True if this message has a collapse count suffix like " (2)" */
-    private boolean collapsed;
+    @Getter private final ParsedLine parsed;
 
     // Cached values for performance
-    private List<VisualLine> lineCache = null;
+    @Getter @Setter private List<VisualLine> lineCache = null;
+
+    // Sequence number in the view the owning container shows, stable until the line is evicted
+    @Getter @Setter private long seq = -1;
+
+    public RichLine(ParsedLine parsed) {
+        this.parsed = parsed;
+    }
+
+    public List<TextSegment> getSegs() {
+        return parsed.getSegs();
+    }
+
+    public CompactSegments getBody() {
+        return parsed.getBody();
+    }
+
+    public boolean isEmpty() {
+        return parsed.isEmpty();
+    }
+
+    public ChatMessageType getType() {
+        return parsed.getType();
+    }
+
+    public long getTimestamp() {
+        return parsed.getTimestamp();
+    }
+
+    public String getSender() {
+        return parsed.getSender();
+    }
+
+    public String getReceiver() {
+        return parsed.getReceiver();
+    }
+
+    public String getTargetName() {
+        return parsed.getTargetName();
+    }
+
+    public String getDuplicateKey() {
+        return parsed.getDuplicateKey();
+    }
+
+    public boolean isCollapsed() {
+        return parsed.isCollapsed();
+    }
 
     public void resetCache() {
-        if (lineCache != null) {
-            lineCache.clear();
-        }
+        // Segments are inflated per wrap, dropping the wrap cache releases them and their image caches
         lineCache = null;
-
-        for (TextSegment seg : segs) {
-            seg.resetCache();
-        }
     }
-}
\ No newline at end of file
+}
@@ -39,6 +39,13 @@ public final class Tab {
         }
     }
 
+    public void addUnread(int count, int max) {
+        if (muted || count <= 0 || unread >= max) {
+            return;
+        }
+        unread = (int) Math.min((long) unread + count, max);
+    }
+
     public boolean isPrivate() {
         return key != null && key.startsWith("private_");
     }
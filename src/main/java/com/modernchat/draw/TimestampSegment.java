@@ -1,15 +1,38 @@
 package com.modernchat.draw;
 
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
 
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class TimestampSegment extends TextSegment
 {
+    // Timestamp segments are shared by every line in the same minute, so the width is measured once per font
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    private Font measuredFont = null;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    private int measuredWidth = 0;
+
     public TimestampSegment(String t, Color c) {
         super(t, c);
     }
+
+    public int measureWidth(FontMetrics fm) {
+        Font font = fm.getFont();
+        if (measuredFont == null || !measuredFont.equals(font)) {
+            measuredWidth = fm.stringWidth(getText());
+            measuredFont = font;
+        }
+        return measuredWidth;
+    }
 }
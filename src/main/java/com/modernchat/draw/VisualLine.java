@@ -1,7 +1,10 @@
 package com.modernchat.draw;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,4 +12,12 @@ import java.util.List;
 public final class VisualLine
 {
     final List<TextSegment> segs = new ArrayList<>();
-}
\ No newline at end of file
+
+    // Pre-rendered row owned by the container that draws it, valid for one style generation
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    BufferedImage tile = null;
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    int tileGeneration = 0;
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    long tileDrawnFrame = 0;
+}
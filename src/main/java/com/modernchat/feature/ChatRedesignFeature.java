@@ -12,6 +12,7 @@ import com.modernchat.common.NotificationService;
 import com.modernchat.common.WidgetBucket;
 import com.modernchat.draw.Margin;
 import com.modernchat.draw.Padding;
+import com.modernchat.draw.ParsedMessage;
 import com.modernchat.event.ChatResizedEvent;
 import com.modernchat.event.ChatSendLockedEvent;
 import com.modernchat.event.LegacyChatVisibilityChangeEvent;
@@ -23,6 +24,9 @@ import com.modernchat.overlay.ChatOverlay;
 import com.modernchat.overlay.ChatOverlayConfig;
 import com.modernchat.overlay.MessageContainer;
 import com.modernchat.overlay.MessageContainerConfig;
+import com.modernchat.service.ChatArchiveService;
+import com.modernchat.service.ChatIngestService;
+import com.modernchat.service.FloodControlService;
 import com.modernchat.service.MessageFilterService;
 import com.modernchat.service.MessageService;
 import com.modernchat.util.ChatUtil;
@@ -32,6 +36,7 @@ import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.Point;
 import net.runelite.api.ScriptID;
+import net.runelite.api.events.BeforeRender;
 import net.runelite.api.events.ChatMessage;
 import net.runelite.api.events.ClanChannelChanged;
 import net.runelite.api.events.FriendsChatChanged;
@@ -49,6 +54,7 @@ import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.events.ProfileChanged;
 import net.runelite.client.ui.overlay.OverlayManager;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.awt.Color;
@@ -120,6 +126,7 @@ public class ChatRedesignFeature extends AbstractChatFeature<ChatRedesignFeature
         // MessageContainerConfig
         boolean featureRedesign_MessageContainer_PrefixChatType();
         boolean featureRedesign_MessageContainer_ShowTimestamp();
+        boolean featureRedesign_MessageContainer_TimestampSeconds();
         boolean featureRedesign_MessageContainer_Scrollable();
         boolean featureRedesign_MessageContainer_DrawScrollbar();
         int featureRedesign_MessageContainer_OffsetX();
@@ -152,6 +159,9 @@ public class ChatRedesignFeature extends AbstractChatFeature<ChatRedesignFeature
     @Inject private WidgetBucket widgetBucket;
     @Inject private MessageService messageService;
     @Inject private MessageFilterService messageFilterService;
+    @Inject private ChatIngestService chatIngestService;
+    @Inject private FloodControlService floodControlService;
+    @Inject private ChatArchiveService chatArchiveService;
     @Inject private NotificationService notificationService;
     @Inject private ChatOverlay overlay;
     @Inject private ChannelFilterState channelFilterState;
@@ -227,6 +237,7 @@ public class ChatRedesignFeature extends AbstractChatFeature<ChatRedesignFeature
             @Override public ChatMode featureRedesign_DefaultChatMode() { return cfg.featureRedesign_DefaultChatMode(); }
             @Override public boolean featureRedesign_MessageContainer_PrefixChatType() { return cfg.featureRedesign_MessageContainer_PrefixChatType(); }
             @Override public boolean featureRedesign_MessageContainer_ShowTimestamp() { return cfg.featureRedesign_MessageContainer_ShowTimestamp(); }
+            @Override public boolean featureRedesign_MessageContainer_TimestampSeconds() { return cfg.featureRedesign_MessageContainer_TimestampSeconds(); }
             @Override public boolean featureRedesign_MessageContainer_Scrollable() { return cfg.featureRedesign_MessageContainer_Scrollable(); }
             @Override public boolean featureRedesign_MessageContainer_DrawScrollbar() { return cfg.featureRedesign_MessageContainer_DrawScrollbar(); }
             @Override public int featureRedesign_MessageContainer_OffsetX() { return cfg.featureRedesign_MessageContainer_OffsetX(); }
@@ -340,6 +351,7 @@ public class ChatRedesignFeature extends AbstractChatFeature<ChatRedesignFeature
             final MessageContainerConfig containerConfig = new MessageContainerConfig.Default() {
                 @Override public boolean isPrefixChatType() { return cfg.featureRedesign_MessageContainer_PrefixChatType(); }
                 @Override public boolean isShowTimestamp() { return cfg.featureRedesign_MessageContainer_ShowTimestamp(); }
+                @Override public boolean isShowTimestampSeconds() { return cfg.featureRedesign_MessageContainer_TimestampSeconds(); }
                 @Override public boolean isScrollable() { return cfg.featureRedesign_MessageContainer_Scrollable(); }
                 @Override public boolean isDrawScrollbar() { return cfg.featureRedesign_MessageContainer_DrawScrollbar(); }
                 @Override public boolean isShowNpcMessages() { return cfg.featureRedesign_ShowNpc(); }
@@ -511,6 +523,12 @@ public class ChatRedesignFeature extends AbstractChatFeature<ChatRedesignFeature
 
             overlay.refreshTabs();
 
+            // History recovered from the archive at startup, replayed once per session
+            chatArchiveService.takeHistory().thenAccept(history -> {
+                if (!history.isEmpty())
+                    clientThread.invoke(() -> overlay.replayMessages(history));
+            });
+
             clientThread.invokeAtTickEnd(() -> overlay.selectDefaultTab());
 
             if (mainConfig.featureToggle_StartHidden())
@@ -526,10 +544,24 @@ public class ChatRedesignFeature extends AbstractChatFeature<ChatRedesignFeature
     @Subscribe
     public void onGameTick(GameTick tick) {
         overlay.inputTick();
+        overlay.sweepIdleContainers();
+    }
+
+    @Subscribe
+    public void onBeforeRender(BeforeRender e) {
+        // Commit messages finished by the background ingest worker
+        chatIngestService.drain(this::admitMessage);
+        floodControlService.drainSummaries(overlay::addMessage);
+        overlay.commitPendingMessages();
     }
 
     @Subscribe(priority = -3) // run after ChatMessageManager
     public void onChatMessage(ChatMessage e) {
+        if (chatIngestService.isEnabled()) {
+            chatIngestService.submit(e, overlay.newParser());
+            return;
+        }
+
         // Run message through filter service (replicates ChatFilterPlugin logic internally)
         String filteredMessage = messageFilterService.filterMessage(e);
         if (filteredMessage == null) {
@@ -550,7 +582,24 @@ public class ChatRedesignFeature extends AbstractChatFeature<ChatRedesignFeature
         }
 
         log.debug("Chat message received: {}", line);
-        overlay.addMessage(line);
+        admitMessage(line, null);
+    }
+
+    /**
+     * Applies the flood budget to a filtered message. Blocked and ignored messages never reach
+     * this point, so they cannot use up the budget of the lines that are shown. Lines finished
+     * by the ingest worker are admitted when drained, where the older lines of the same frame
+     * are still pending and can be dropped in their favour.
+     */
+    private void admitMessage(MessageLine line, @Nullable ParsedMessage parsed) {
+        if (!floodControlService.admit(line.getType(), overlay::dropOldestPending))
+            return;
+        addMessage(line, parsed);
+    }
+
+    private void addMessage(MessageLine line, @Nullable ParsedMessage parsed) {
+        chatArchiveService.record(line);
+        overlay.addMessage(line, parsed);
     }
 
     @Subscribe
@@ -10,7 +10,6 @@ import com.modernchat.draw.ChannelFilterType;
 import com.modernchat.draw.ChatColors;
 import com.modernchat.draw.Margin;
 import com.modernchat.draw.Padding;
-import com.modernchat.draw.RichLine;
 import com.modernchat.event.ChatMenuOpenedEvent;
 import com.modernchat.event.ModernChatVisibilityChangeEvent;
 import com.modernchat.event.SetPeekSourceEvent;
@@ -18,8 +17,9 @@ import com.modernchat.event.TabClosedEvent;
 import com.modernchat.overlay.ChannelFilterState;
 import com.modernchat.overlay.ChatOverlay;
 import com.modernchat.overlay.ChatPeekOverlay;
-import com.modernchat.overlay.MessageContainer;
 import com.modernchat.overlay.MessageContainerConfig;
+import com.modernchat.overlay.MessageStore;
+import com.modernchat.overlay.MessageView;
 import com.modernchat.service.MessageFilterService;
 import com.modernchat.util.ChatUtil;
 import com.modernchat.util.StringUtil;
@@ -89,6 +89,7 @@ public class PeekChatFeature extends AbstractChatFeature<PeekChatFeatureConfig>
 	@Inject private ChatPeekOverlay chatPeekOverlay;
 	@Inject private WidgetBucket widgetBucket;
 	@Inject private ChatOverlay chatOverlay;
+	@Inject private MessageStore messageStore;
 	@Inject private ConfigManager configManager;
 	@Inject private ChannelFilterState channelFilterState;
 	@Inject private MessageFilterService messageFilterService;
@@ -393,25 +394,11 @@ public class PeekChatFeature extends AbstractChatFeature<PeekChatFeatureConfig>
 			return;
 		}
 
-		MessageContainer container = null;
-		if (tabKey.equals("ALL")) {
-			container = chatOverlay.getAllContainer();
-		} else if (tabKey.equals("GAME")) {
-			container = chatOverlay.getGameContainer();
-		} else if (tabKey.equals("TRADE")) {
-			container = chatOverlay.getTradeContainer();
-		} else if (tabKey.startsWith("private_")) {
-			String target = tabKey.substring("private_".length());
-			container = chatOverlay.getPrivateContainers().get(target);
-		} else {
-			// Standard tabs: PUBLIC, FRIENDS_CHAT, CLAN_MAIN, CLAN_GUEST, etc.
-			container = chatOverlay.getMessageContainers().get(tabKey);
-		}
-
-		if (container != null) {
-			for (RichLine rl : container.getLines()) {
-				chatPeekOverlay.copyLine(rl);
-			}
+		// The newest lines of the source tab's view in the shared store; the peek overlay keeps
+		// its own short list since it filters and colours lines itself, but shares their segments
+		MessageView view = messageStore.findView(tabKey);
+		if (view != null) {
+			view.forEachRecent(chatPeekOverlay.getMaxLines(), line -> chatPeekOverlay.pushParsedLine(line.getParsed()));
 		}
 	}
 
@@ -41,6 +41,13 @@ public class ChannelFilterState {
         setEnabled(type, !isEnabled(type));
     }
 
+    /**
+     * Current filter bits, a set bit hides the {@link ChannelFilterType}.
+     */
+    public int getFilterFlags() {
+        return config == null ? 0 : config.getChannelFilterFlags(currentChatMode);
+    }
+
     public boolean shouldShowMessage(ChatMessageType messageType) {
         ChannelFilterType filterType = mapMessageTypeToFilter(messageType);
         if (filterType == null) {
@@ -14,6 +14,8 @@ import com.modernchat.draw.ChannelFilterType;
 import com.modernchat.draw.Dropdown;
 import com.modernchat.draw.DropdownItem;
 import com.modernchat.draw.Padding;
+import com.modernchat.draw.ParsedLine;
+import com.modernchat.draw.ParsedMessage;
 import com.modernchat.draw.RichLine;
 import com.modernchat.draw.RowHit;
 import com.modernchat.draw.Tab;
@@ -28,9 +30,11 @@ import com.modernchat.event.NavigateHistoryEvent;
 import com.modernchat.event.SetPeekSourceEvent;
 import com.modernchat.event.TabChangeEvent;
 import com.modernchat.event.TabClosedEvent;
+import com.modernchat.service.ChatExportService;
 import com.modernchat.service.FilterService;
 import com.modernchat.service.FontService;
 import com.modernchat.service.ImageService;
+import com.modernchat.service.MessageParseService;
 import com.modernchat.service.MessageService;
 import com.modernchat.service.SpamFilterService;
 import com.modernchat.util.ChatUtil;
@@ -40,6 +44,7 @@ import com.modernchat.util.StringUtil;
 import com.modernchat.util.TextDrawUtil;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
@@ -56,6 +61,7 @@ import net.runelite.api.clan.ClanID;
 import net.runelite.api.events.ChatMessage;
 import net.runelite.api.events.ClientTick;
 import net.runelite.api.events.MenuOpened;
+import net.runelite.api.events.PostClientTick;
 import net.runelite.api.events.ScriptCallbackEvent;
 import net.runelite.api.events.ScriptPostFired;
 import net.runelite.api.events.VarClientStrChanged;
@@ -68,6 +74,7 @@ import net.runelite.client.config.Keybind;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ChatboxInput;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.input.KeyListener;
 import net.runelite.client.input.KeyManager;
 import net.runelite.client.input.MouseListener;
@@ -104,12 +111,19 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Slf4j
 @Singleton
@@ -128,9 +142,13 @@ public class ChatOverlay extends OverlayPanel
     @Inject private MessageService messageService;
     @Inject private ImageService imageService;
     @Inject private SpamFilterService spamFilterService;
+    @Inject private ChatExportService chatExportService;
+    @Inject private MessageParseService messageParseService;
     @Inject @Getter private ResizePanel resizePanel;
     @Inject private Provider<MessageContainer> messageContainerProvider;
     @Inject @Getter private ChannelFilterState channelFilterState;
+    @Inject private MessageStore messageStore;
+    @Inject private RowTileCache rowTileCache;
     @Inject private Provider<ChatProxy> chatProxyProvider;
     @Inject private ModernChatConfig mainConfig;
 
@@ -147,19 +165,63 @@ public class ChatOverlay extends OverlayPanel
     @Getter private int lastTabBarHeight = 0;
     @Getter private boolean commandMode;
 
+    // Scrollback search, the input box holds the query while active
+    @Getter private boolean searchMode = false;
+    private long[] searchMatches = new long[0];
+    private int searchCursor = -1;
+    private String searchSavedInput = "";
+
     @Getter private final Map<String, MessageContainer> messageContainers = new ConcurrentHashMap<>();
+    // Private containers and tabs are keyed by MessageStore.conversationKey of the target name
     @Getter private final Map<String, MessageContainer> privateContainers = new ConcurrentHashMap<>();
     @Getter @Nullable private MessageContainer messageContainer = null;
     @Getter @Nullable private MessageContainer allContainer = null;
     @Getter private EnumSet<ChatMode> availableChatModes = EnumSet.noneOf(ChatMode.class);
 
     // All tab constants (replaces Public, receives all messages)
-    private static final String ALL_TAB_KEY = "ALL";
-    private static final int ALL_TAB_MAX_LINES = 100;
+    private static final String ALL_TAB_KEY = MessageStore.ALL;
+
+    // Unread badge cap
+    private static final int MAX_UNREAD = 99;
+    private static final int IDLE_SWEEP_INTERVAL_TICKS = 50; // ~30 seconds
+
+    // Messages are committed to the message store once per client tick (client thread only)
+    private final List<PendingMessage> pendingMessages = new ArrayList<>();
+    private final Map<Tab, Integer> batchUnread = new IdentityHashMap<>();
+    // Set while archived history is committed; no unread badges or new private tabs
+    private boolean replaying = false;
+    private int idleSweepTicks = 0;
+
+    @Value
+    private static class PendingMessage
+    {
+        MessageLine line;
+        @Nullable ParsedMessage parsed;
+    }
+
+    /**
+     * Precomputed destinations for one message type. Tabs may be null when the container
+     * exists without a visible tab. The views are those of the All tab and the containers.
+     */
+    @Value
+    private static class Route
+    {
+        ChatMode mode;
+        @Nullable ChannelFilterType filterType;
+        boolean allTabOnly;
+        MessageContainer[] containers;
+        Tab[] tabs;
+        MessageView[] views;
+    }
+
+    // Routing table indexed by ChatMessageType ordinal, rebuilt lazily after tab or config changes
+    private volatile Route[] routes = null;
+    private @Nullable Tab routedAllTab = null;
+    private final Map<String, Tab> privateTabsByTarget = new ConcurrentHashMap<>();
 
     // Static tab constants
-    private static final String GAME_TAB_KEY = "GAME";
-    private static final String TRADE_TAB_KEY = "TRADE";
+    private static final String GAME_TAB_KEY = MessageStore.GAME;
+    private static final String TRADE_TAB_KEY = MessageStore.TRADE;
     @Getter @Nullable private MessageContainer gameContainer = null;
     @Getter @Nullable private MessageContainer tradeContainer = null;
 
@@ -291,27 +353,32 @@ public class ChatOverlay extends OverlayPanel
             ChatMode.CLAN_GIM.name(), clanContainer
         ));
 
+        // Each container shows its tab's view of the shared message store
         messageContainers.forEach((mode, container) -> {
             container.setChromeEnabled(true);
             container.startUp(containerConfig, ChatMode.valueOf(mode));
+            container.setView(messageStore.getView(mode));
         });
 
         // Initialize single chat container for combined mode
         allContainer = messageContainerProvider.get();
         allContainer.setChromeEnabled(true);
-        allContainer.setMaxLines(ALL_TAB_MAX_LINES);
         allContainer.setApplyChannelFilters(true);
         allContainer.startUp(containerConfig, ChatMode.PUBLIC);
+        allContainer.setView(messageStore.getView(ALL_TAB_KEY));
 
         // Initialize Game and Trade containers (read-only tabs)
         gameContainer = messageContainerProvider.get();
         gameContainer.setChromeEnabled(true);
         gameContainer.startUp(containerConfig, ChatMode.PUBLIC);
+        gameContainer.setView(messageStore.getView(GAME_TAB_KEY));
 
         tradeContainer = messageContainerProvider.get();
         tradeContainer.setChromeEnabled(true);
         tradeContainer.startUp(containerConfig, ChatMode.PUBLIC);
+        tradeContainer.setView(messageStore.getView(TRADE_TAB_KEY));
 
+        applyHistoryDepth();
         refreshTabs();
 
         ChatProxy chatProxy = chatProxyProvider.get();
@@ -349,6 +416,8 @@ public class ChatOverlay extends OverlayPanel
             tradeContainer.shutDown();
             tradeContainer = null;
         }
+        messageStore.clear();
+        invalidateRoutes();
 
         lastViewport = null;
         commandMode = false;
@@ -387,9 +456,9 @@ public class ChatOverlay extends OverlayPanel
         // Layout constants
         final Padding pad = config.getPadding();
         final Font font = getFont();
-        Font inputFont = font.deriveFont((float) config.getInputFontSize());
+        Font inputFont = fontService.derive(font, (float) config.getInputFontSize());
         g.setFont(inputFont);
-        FontMetrics fm = g.getFontMetrics();
+        FontMetrics fm = fontService.getMetrics(g, inputFont);
         final int lineH = fm.getAscent() + fm.getDescent() + config.getInputLineSpacing();
 
         final int inputPadX = 8;
@@ -402,9 +471,9 @@ public class ChatOverlay extends OverlayPanel
         final int bottom = vp.y + vp.height - pad.getBottom();
         final int innerW = Math.max(1, vp.width - pad.getWidth());
 
-        Font tabFont = font.deriveFont((float) config.getTabFontSize());
+        Font tabFont = fontService.derive(font, (float) config.getTabFontSize());
         g.setFont(tabFont);
-        FontMetrics tfm = g.getFontMetrics();
+        FontMetrics tfm = fontService.getMetrics(g, tabFont);
 
         lastTabBarHeight = drawTabBar(g, tfm, left, top, innerW);
         final int msgAreaTop = top + lastTabBarHeight + 3; // gap under tabs
@@ -513,8 +582,8 @@ public class ChatOverlay extends OverlayPanel
 
         // Badge font/metrics
         final float notifSize = Math.max(0f, (float) config.getTabBadgeFontSize());
-        final Font notifFont = notifSize > 0f ? tabFont.deriveFont(notifSize) : tabFont;
-        final FontMetrics nfm = g.getFontMetrics(notifFont);
+        final Font notifFont = notifSize > 0f ? fontService.derive(tabFont, notifSize) : tabFont;
+        final FontMetrics nfm = fontService.getMetrics(g, notifFont);
 
         final boolean showTabIcons = config.isShowTabIcons();
 
@@ -780,8 +849,8 @@ public class ChatOverlay extends OverlayPanel
             java.awt.Font oldFont = null;
             if (reportFontSize > 0) {
                 oldFont = g.getFont();
-                g.setFont(oldFont.deriveFont((float) reportFontSize));
-                rfm = g.getFontMetrics();
+                g.setFont(fontService.derive(oldFont, (float) reportFontSize));
+                rfm = fontService.getMetrics(g, g.getFont());
             } else {
                 rfm = fm;
             }
@@ -818,7 +887,7 @@ public class ChatOverlay extends OverlayPanel
         filterInputInnerRight = inputInnerRight;
 
         // Prefix
-        String prefix = getPlayerPrefix();
+        String prefix = getInputPrefix();
         int prefixW = fm.stringWidth(prefix);
         int baseline = inputY + inputPadY + fm.getAscent();
 
@@ -1016,7 +1085,7 @@ public class ChatOverlay extends OverlayPanel
             addTab(tab);
         }
 
-        // Use openPrivateMessageContainer to ensure existing messages are copied
+        // Use openPrivateMessageContainer so the container shows the stored conversation
         MessageContainer privateContainer = openPrivateMessageContainer(targetName);
 
         if (messageContainer != null) {
@@ -1203,6 +1272,8 @@ public class ChatOverlay extends OverlayPanel
         Tab nextTab = null;
         Tab tab = tabsByKey.remove(key);
         if (tab != null) {
+            if (tab.isPrivate())
+                privateTabsByTarget.remove(MessageStore.conversationKey(tab.getTargetName()));
             tabIndex = tabOrder.indexOf(tab);
             if (tabIndex >= 0 && tabIndex < tabOrder.size() - 1) {
                 nextTab = tabOrder.get(tabIndex + 1);
@@ -1219,11 +1290,13 @@ public class ChatOverlay extends OverlayPanel
 
         if (key.startsWith("private_")) {
             containers = privateContainers;
-            containerKey = key.substring("private_".length());
+            containerKey = MessageStore.conversationKey(key.substring("private_".length()));
         } else {
             containers = messageContainers;
         }
 
+        invalidateRoutes();
+
         if (containers != null) {
             if (!keepContainer) {
                 MessageContainer container = containers.remove(containerKey);
@@ -1280,12 +1353,16 @@ public class ChatOverlay extends OverlayPanel
 
         try {
             tabsByKey.put(t.getKey(), t);
+            if (t.isPrivate())
+                privateTabsByTarget.put(MessageStore.conversationKey(t.getTargetName()), t);
         } catch (Exception e) {
             log.error("Failed to add tab for key '{}': {}", t.getKey(), e.getMessage());
         }
+        invalidateRoutes();
     }
 
     public void selectTabByKey(String key) {
+        endSearch();
         Tab t = tabsByKey.get(key);
         if (t == null) {
             log.warn("Attempted to select non-existing tab with key: {}", key);
@@ -1416,12 +1493,27 @@ public class ChatOverlay extends OverlayPanel
 
     @Subscribe
     public void onVarClientStrChanged(VarClientStrChanged e) {
-        if (e.getIndex() == VarClientStr.CHATBOX_TYPED_TEXT && !syncingInput) {
+        if (e.getIndex() == VarClientStr.CHATBOX_TYPED_TEXT && !syncingInput && !searchMode) {
             // keep the legacy chat input in sync, if the text matches it will be ignored
             setInputText(ClientUtil.getChatInputText(client), false);
         }
     }
 
+    @Subscribe
+    public void onConfigChanged(ConfigChanged e) {
+        // Game and Trade tab toggles change where messages are routed
+        if (ModernChatConfig.GROUP.equals(e.getGroup())) {
+            invalidateRoutes();
+            // Config changes can arrive off the client thread, resize the stores where they are used
+            clientThread.invoke(this::applyHistoryDepth);
+        }
+    }
+
+    @Subscribe
+    public void onPostClientTick(PostClientTick tick) {
+        commitPendingMessages();
+    }
+
     @Subscribe
     public void onClientTick(ClientTick tick) {
         resizeChatbox(desiredChatWidth, desiredChatHeight);
@@ -1584,6 +1676,23 @@ public class ChatOverlay extends OverlayPanel
                 .setType(MenuAction.RUNELITE)
                 .onClick(me -> eventBus.post(new SetPeekSourceEvent(hovered.getKey())));
 
+            if (chatExportService.isRunning()) {
+                sub.createMenuEntry(index++)
+                    .setOption("Export tab")
+                    .setType(MenuAction.RUNELITE)
+                    .onClick(me -> exportTab(hovered));
+
+                sub.createMenuEntry(index++)
+                    .setOption("Export all")
+                    .setType(MenuAction.RUNELITE)
+                    .onClick(me -> exportAll());
+
+                sub.createMenuEntry(index++)
+                    .setOption("Import latest export")
+                    .setType(MenuAction.RUNELITE)
+                    .onClick(me -> importLatestExport());
+            }
+
             // Vanilla Game-tab filter mode (mirrors the OSRS chatbox dropdown). The varbit is
             // server-synced at login but vanilla writes it client-only mid-session, so a direct
             // setVarbit on the client thread reproduces the in-game tab click.
@@ -1652,6 +1761,65 @@ public class ChatOverlay extends OverlayPanel
         }
     }
 
+    /**
+     * Releases private containers whose tab was closed and drops the layout caches of the other
+     * private containers that have not been shown for the configured idle time. Called every
+     * game tick, does the work every {@link #IDLE_SWEEP_INTERVAL_TICKS} ticks.
+     */
+    public void sweepIdleContainers() {
+        if (++idleSweepTicks < IDLE_SWEEP_INTERVAL_TICKS)
+            return;
+        idleSweepTicks = 0;
+
+        if (log.isDebugEnabled())
+            logContainerHeap();
+
+        int idleMinutes = mainConfig.performance_PrivateIdleMinutes();
+        if (idleMinutes <= 0)
+            return;
+
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000L;
+        privateContainers.entrySet().removeIf(e -> {
+            MessageContainer container = e.getValue();
+            if (container == messageContainer || container.getLastActiveMs() > cutoff)
+                return false;
+
+            // Reopening shows the stored conversation again, so a container is only released while
+            // the store keeps the lines it shows; otherwise it is kept without its caches
+            if (privateTabsByTarget.containsKey(e.getKey())
+                || messageStore.findConversation(e.getKey()) != container.getView()) {
+                container.releaseCaches();
+                return false;
+            }
+
+            container.shutDown();
+            return true;
+        });
+    }
+
+    private void logContainerHeap() {
+        StringBuilder sb = new StringBuilder();
+        long total = 0;
+        for (Map.Entry<String, MessageContainer> e : messageContainers.entrySet()) {
+            long bytes = e.getValue().estimateHeapBytes();
+            total += bytes;
+            sb.append(' ').append(e.getKey()).append('=').append(bytes / 1024).append("KB");
+        }
+        for (Map.Entry<String, MessageContainer> e : privateContainers.entrySet()) {
+            long bytes = e.getValue().estimateHeapBytes();
+            total += bytes;
+            sb.append(" pm:").append(e.getKey()).append('=').append(bytes / 1024).append("KB");
+        }
+        if (allContainer != null && !messageContainers.containsValue(allContainer)) {
+            long bytes = allContainer.estimateHeapBytes();
+            total += bytes;
+            sb.append(" ALL=").append(bytes / 1024).append("KB");
+        }
+        log.debug("Container heap ~{}KB ({} private, {} stored lines, {}KB search index, {}KB row tiles):{}",
+            total / 1024, privateContainers.size(), messageStore.size(), messageStore.getSearchIndexBytes() / 1024,
+            rowTileCache.getBytes() / 1024, sb);
+    }
+
     private boolean moveTabToIndex(Tab tab, int newIndex) {
         int old = tabOrder.indexOf(tab);
         if (old < 0)
@@ -1742,6 +1910,16 @@ public class ChatOverlay extends OverlayPanel
         return filteredIndex != old;
     }
 
+    private String getInputPrefix() {
+        if (searchMode) {
+            int terms = messageStore.getSearchIndexTerms();
+            return searchMatches.length == 0
+                ? "Search (" + terms + " words): "
+                : "Search (" + (searchCursor + 1) + "/" + searchMatches.length + " of " + terms + " words): ";
+        }
+        return getPlayerPrefix();
+    }
+
     private String getPlayerPrefix() {
         Player lp = client.getLocalPlayer();
         String name = lp != null && lp.getName() != null ? Text.removeTags(lp.getName()) : "Player";
@@ -1784,6 +1962,7 @@ public class ChatOverlay extends OverlayPanel
     }
 
     public void unfocusInput() {
+        endSearch();
         inputFocused = false;
         caretOn = false;
         lastBlinkMs = 0;
@@ -1837,6 +2016,13 @@ public class ChatOverlay extends OverlayPanel
     }
 
     public boolean submitInput(KeyEvent e) {
+        if (searchMode && inputFocused) {
+            // Enter steps to the previous (older) match, shift+enter to the next
+            stepSearch(!e.isShiftDown());
+            e.consume();
+            return false;
+        }
+
         if (!inputFocused) {
             focusInput();
             if (!mainConfig.featureToggle_Enabled()) {
@@ -1859,6 +2045,68 @@ public class ChatOverlay extends OverlayPanel
         return true;
     }
 
+    /**
+     * Toggles scrollback search. While searching the input box holds the query and the active
+     * container jumps to the newest matching line; the chat draft is restored afterwards.
+     */
+    public void toggleSearch() {
+        if (searchMode) {
+            endSearch();
+            return;
+        }
+        if (messageContainer == null)
+            return;
+
+        searchMode = true;
+        searchSavedInput = inputBuf.toString();
+        searchMatches = new long[0];
+        searchCursor = -1;
+        inputBuf.setLength(0);
+        caret = 0;
+        inputScrollPx = 0;
+        clearSelection();
+    }
+
+    public void endSearch() {
+        if (!searchMode)
+            return;
+
+        searchMode = false;
+        searchMatches = new long[0];
+        searchCursor = -1;
+        if (messageContainer != null)
+            messageContainer.endSearch();
+
+        inputBuf.setLength(0);
+        inputBuf.append(searchSavedInput);
+        caret = inputBuf.length();
+        inputScrollPx = 0;
+        clearSelection();
+        searchSavedInput = "";
+    }
+
+    private void updateSearch() {
+        MessageContainer container = messageContainer;
+        if (container == null)
+            return;
+
+        String query = inputBuf.toString();
+        searchMatches = query.isBlank() ? new long[0] : container.search(query);
+        searchCursor = searchMatches.length - 1;
+        if (searchCursor >= 0)
+            container.scrollToSeq(searchMatches[searchCursor]);
+    }
+
+    private void stepSearch(boolean older) {
+        MessageContainer container = messageContainer;
+        if (container == null || searchMatches.length == 0)
+            return;
+
+        searchCursor = Math.floorMod(searchCursor + (older ? -1 : 1), searchMatches.length);
+        if (!container.scrollToSeq(searchMatches[searchCursor]))
+            updateSearch(); // match was evicted, search again
+    }
+
     public @Nullable String getCurrentTarget() {
         return activeTab != null && activeTab.isPrivate() ? activeTab.getTargetName() : null;
     }
@@ -1915,6 +2163,15 @@ public class ChatOverlay extends OverlayPanel
     }
 
     public void addMessage(MessageLine line) {
+        addMessage(line, null);
+    }
+
+    /**
+     * Add a message that may already have been parsed off the client thread.
+     *
+     * @param parsed the message parsed with {@link #newParser()}, or null to parse now
+     */
+    public void addMessage(MessageLine line, @Nullable ParsedMessage parsed) {
         addMessage(
             line.getText(),
             line.getType(),
@@ -1924,7 +2181,41 @@ public class ChatOverlay extends OverlayPanel
             line.getPrefix(),
             line.getDuplicateKey(),
             line.isCollapsed(),
-            line.getSenderIconId());
+            line.getSenderIconId(),
+            parsed);
+    }
+
+    /**
+     * Returns a parser for the tab containers bound to their current parse inputs, or null if
+     * there is no container yet. Must be called on the client thread, the parser itself is safe
+     * to run on any thread since it only reads the captured style.
+     */
+    public @Nullable Function<MessageLine, ParsedMessage> newParser() {
+        MessageContainer container = allContainer;
+        if (container == null)
+            return null;
+
+        MessageParseService.Style style = container.getParseStyle();
+        return line -> {
+            ChatMessageType type = line.getType();
+            return messageParseService.parse(
+                style,
+                line.getText(),
+                type,
+                line.getTimestamp(),
+                line.getSenderName(),
+                line.getReceiverName(),
+                getTargetName(type, line.getSenderName(), line.getReceiverName()),
+                line.getPrefix(),
+                line.getDuplicateKey(),
+                line.isCollapsed());
+        };
+    }
+
+    private static String getTargetName(ChatMessageType type, String senderName, String receiverName) {
+        return type == ChatMessageType.PRIVATECHATOUT || type == ChatMessageType.FRIENDNOTIFICATION
+            ? receiverName
+            : senderName;
     }
 
     public void addMessage(
@@ -1949,59 +2240,246 @@ public class ChatOverlay extends OverlayPanel
         boolean collapsed,
         int senderIconId
     ) {
-        ChatMode mode = ChatUtil.toChatMode(type);
-        String targetName = type == ChatMessageType.PRIVATECHATOUT || type == ChatMessageType.FRIENDNOTIFICATION
-            ? receiverName
-            : senderName;
+        addMessage(line, type, timestamp, senderName, receiverName, prefix, duplicateKey, collapsed, senderIconId, null);
+    }
+
+    private void addMessage(
+        String line,
+        ChatMessageType type,
+        long timestamp,
+        String senderName,
+        String receiverName,
+        String prefix,
+        String duplicateKey,
+        boolean collapsed,
+        int senderIconId,
+        @Nullable ParsedMessage parsed
+    ) {
+        pendingMessages.add(new PendingMessage(
+            new MessageLine(line, type, timestamp, senderName, receiverName, prefix, duplicateKey, collapsed, senderIconId),
+            parsed));
+    }
+
+    /**
+     * Drops the oldest message of this type that has not been committed yet.
+     *
+     * @return true if a message was dropped
+     */
+    public boolean dropOldestPending(ChatMessageType type) {
+        for (int i = 0; i < pendingMessages.size(); i++) {
+            if (pendingMessages.get(i).getLine().getType() == type) {
+                pendingMessages.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds archived history to the tabs as one batch, without unread badges or opening private
+     * tabs. Messages already pending are committed first.
+     */
+    public void replayMessages(List<MessageLine> history) {
+        commitPendingMessages();
+
+        for (MessageLine line : history) {
+            pendingMessages.add(new PendingMessage(line, null));
+        }
+
+        replaying = true;
+        try {
+            commitPendingMessages();
+        } finally {
+            replaying = false;
+        }
+    }
+
+    /**
+     * Exports the lines currently held by a tab's container to a JSON Lines file.
+     */
+    public void exportTab(Tab tab) {
+        String key = tab.getKey();
+        MessageContainer container;
+        if (ALL_TAB_KEY.equals(key)) {
+            container = allContainer;
+        } else if (GAME_TAB_KEY.equals(key)) {
+            container = gameContainer;
+        } else if (TRADE_TAB_KEY.equals(key)) {
+            container = tradeContainer;
+        } else if (tab.isPrivate()) {
+            container = privateContainers.get(MessageStore.conversationKey(tab.getTargetName()));
+        } else {
+            container = messageContainers.get(key);
+        }
+
+        if (container == null) {
+            log.warn("Attempted to export tab without a container, key: {}", key);
+            notificationService.pushChatMessage("Nothing to export for the " + tab.getTitle() + " tab.");
+            return;
+        }
+
+        // Only references are copied here, the worker does the formatting and writing
+        List<ParsedLine> snapshot = new ArrayList<>();
+        container.forEachLine(snapshot::add);
+        exportLines(tab.getTitle(), snapshot);
+    }
+
+    /**
+     * Exports every line in the shared history to a JSON Lines file.
+     */
+    public void exportAll() {
+        List<ParsedLine> snapshot = new ArrayList<>(messageStore.size());
+        messageStore.getView(ALL_TAB_KEY).forEach(sl -> snapshot.add(sl.getParsed()));
+        exportLines("all", snapshot);
+    }
+
+    private void exportLines(String label, List<ParsedLine> snapshot) {
+        chatExportService.export(label, snapshot).whenComplete((count, ex) -> {
+            if (ex != null) {
+                log.warn("Failed to export chat", ex);
+                notificationService.pushChatMessage("Chat export failed, see the client log for details.");
+            } else {
+                notificationService.pushChatMessage("Exported " + count + " messages to " + chatExportService.getExportDir());
+            }
+        });
+    }
+
+    /**
+     * Imports the newest export file in batches. Lines already in the history, matched by
+     * timestamp, type and sender, are skipped, so importing the same file twice adds nothing.
+     * <p>
+     * Imported lines do not pass the message filters, flood control or the archive. The file only
+     * holds lines that passed the filters when they arrived, and the filters need the original
+     * chat event and the client state of that moment, which are not in the file. Flood control
+     * budgets live traffic per frame and would drop most of the file. Archiving the lines would
+     * replay them again at the next login on top of the file.
+     */
+    public void importLatestExport() {
+        final Set<String> known = new HashSet<>();
+        final AtomicInteger skipped = new AtomicInteger();
+        chatExportService.importLatest(batch -> {
+            if (known.isEmpty())
+                messageStore.getView(ALL_TAB_KEY).forEach(sl -> known.add(
+                    importKey(sl.getParsed().getTimestamp(), sl.getParsed().getType(), sl.getParsed().getSender())));
+
+            List<MessageLine> fresh = new ArrayList<>(batch.size());
+            for (MessageLine line : batch) {
+                if (known.contains(importKey(line.getTimestamp(), line.getType(), line.getSenderName())))
+                    skipped.incrementAndGet();
+                else
+                    fresh.add(line);
+            }
+            replayMessages(fresh);
+        }).whenComplete((count, ex) -> {
+            if (ex != null) {
+                log.warn("Failed to import chat", ex);
+                notificationService.pushChatMessage("Chat import failed, see the client log for details.");
+            } else if (count == 0) {
+                notificationService.pushChatMessage("No chat messages to import in " + chatExportService.getExportDir());
+            } else if (skipped.get() > 0) {
+                notificationService.pushChatMessage("Imported " + (count - skipped.get()) + " messages, "
+                    + skipped.get() + " were already in the chat history.");
+            } else {
+                notificationService.pushChatMessage("Imported " + count + " messages.");
+            }
+        });
+    }
+
+    private static String importKey(long timestamp, ChatMessageType type, @Nullable String sender) {
+        return timestamp + ":" + type.ordinal() + ":" + (sender != null ? sender : "");
+    }
+
+    /**
+     * Commit all messages received since the last commit as a single batch. Each tab gets a
+     * single unread update.
+     */
+    public void commitPendingMessages() {
+        if (pendingMessages.isEmpty())
+            return;
+
+        try {
+            for (PendingMessage pending : pendingMessages) {
+                MessageLine msg = pending.getLine();
+                routeMessage(
+                    msg.getText(),
+                    msg.getType(),
+                    msg.getTimestamp(),
+                    msg.getSenderName(),
+                    msg.getReceiverName(),
+                    msg.getPrefix(),
+                    msg.getDuplicateKey(),
+                    msg.isCollapsed(),
+                    msg.getSenderIconId(),
+                    pending.getParsed());
+            }
+        } finally {
+            pendingMessages.clear();
+
+            batchUnread.forEach((tab, count) -> tab.addUnread(count, MAX_UNREAD));
+            batchUnread.clear();
+        }
+    }
+
+    private void markUnread(Tab tab) {
+        if (replaying)
+            return;
+        batchUnread.merge(tab, 1, Integer::sum);
+    }
+
+    private void routeMessage(
+        String line,
+        ChatMessageType type,
+        long timestamp,
+        String senderName,
+        String receiverName,
+        String prefix,
+        String duplicateKey,
+        boolean collapsed,
+        int senderIconId,
+        @Nullable ParsedMessage parsed
+    ) {
+        Route route = getRoutes()[type.ordinal()];
+        ChatMode mode = route.getMode();
+        String targetName = getTargetName(type, senderName, receiverName);
 
         // Check if message passes through filters (for unread badge suppression)
-        ChannelFilterType filterType = channelFilterState.mapMessageTypeToFilter(type);
+        ChannelFilterType filterType = route.getFilterType();
         boolean messagePassesFilters = filterType == null || channelFilterState.isEnabled(filterType);
 
         // If viewing All tab and message passes filters, user already saw it - suppress unread on other tabs
         boolean viewingAllTab = messageContainer == allContainer;
         boolean suppressOtherTabUnread = viewingAllTab && messagePassesFilters;
 
-        // Always push to All container first (receives all messages)
-        if (allContainer != null) {
-            allContainer.pushLine(line, type, timestamp, senderName, receiverName, targetName, prefix, duplicateKey, collapsed);
+        // Parse once; the line is stored once and every container showing it only keeps its own wrap cache
+        if (parsed == null && allContainer != null) {
+            parsed = allContainer.parse(line, type, timestamp, senderName, receiverName, targetName, prefix, duplicateKey, collapsed);
         }
 
         // Track if message was routed to any specific tab (to avoid double unread on All tab)
         // If user is viewing that tab, they've already "read" it there
         boolean routedToSpecificTab = false;
 
-        // Route to Game tab if it's a game message and tab is enabled
-        if (filterType == ChannelFilterType.GAME && config.isGameTabEnabled() && gameContainer != null) {
-            gameContainer.pushLine(line, type, timestamp, senderName, receiverName, targetName, prefix, duplicateKey, collapsed);
+        // Route to the Game, Trade or mode-specific (Clan, Clan Guest, Clan GIM, Friends Chat) tabs
+        MessageContainer[] containers = route.getContainers();
+        Tab[] tabs = route.getTabs();
+        for (int i = 0; i < containers.length; i++) {
+            MessageContainer container = containers[i];
             routedToSpecificTab = true;
-            Tab gameTab = tabsByKey.get(GAME_TAB_KEY);
-            if (gameTab != null && messageContainer != gameContainer && !suppressOtherTabUnread && !collapsed && gameTab.getUnread() < 99) {
-                gameTab.incrementUnread();
+            Tab tab = tabs[i];
+            if (tab != null && messageContainer != container && !suppressOtherTabUnread && !collapsed) {
+                markUnread(tab);
             }
         }
 
-        // Route to Trade tab if it's a trade message and tab is enabled
-        if (filterType == ChannelFilterType.TRADE && config.isTradeTabEnabled() && tradeContainer != null) {
-            tradeContainer.pushLine(line, type, timestamp, senderName, receiverName, targetName, prefix, duplicateKey, collapsed);
-            routedToSpecificTab = true;
-            Tab tradeTab = tabsByKey.get(TRADE_TAB_KEY);
-            if (tradeTab != null && messageContainer != tradeContainer && !suppressOtherTabUnread && !collapsed && tradeTab.getUnread() < 99) {
-                tradeTab.incrementUnread();
-            }
+        // Store the lines once, in the All view, the routed views and the private conversation;
+        // containers showing those views pick them up from there
+        MessageView[] views = route.getViews();
+        if (mode == ChatMode.PRIVATE && !StringUtil.isNullOrEmpty(targetName)) {
+            views = Arrays.copyOf(views, views.length + 1);
+            views[views.length - 1] = messageStore.getConversation(targetName);
         }
-
-        // Route to mode-specific tab (Clan, Clan Guest, Clan GIM, Friends Chat)
-        if (mode != ChatMode.PRIVATE && mode != ChatMode.PUBLIC) {
-            MessageContainer modeContainer = messageContainers.get(mode.name());
-            if (modeContainer != null) {
-                modeContainer.pushLine(line, type, timestamp, senderName, receiverName, targetName, prefix, duplicateKey, collapsed);
-                routedToSpecificTab = true;
-                Tab modeTab = tabsByKey.get(tabKey(mode));
-                if (modeTab != null && messageContainer != modeContainer && !suppressOtherTabUnread && !collapsed && modeTab.getUnread() < 99) {
-                    modeTab.incrementUnread();
-                }
-            }
+        if (parsed != null) {
+            messageStore.add(parsed.getLines(), views, duplicateKey, collapsed);
         }
 
         // Handle private messages
@@ -2012,7 +2490,7 @@ public class ChatOverlay extends OverlayPanel
             }
 
             // Flash filter indicator if incoming PM is filtered and no tab will open for it
-            if (type != ChatMessageType.PRIVATECHATOUT && type != ChatMessageType.FRIENDNOTIFICATION) {
+            if (!replaying && type != ChatMessageType.PRIVATECHATOUT && type != ChatMessageType.FRIENDNOTIFICATION) {
                 boolean isPrivateFiltered = !channelFilterState.isEnabled(ChannelFilterType.PRIVATE);
                 boolean noTabWillOpen = !config.isOpenTabOnIncomingPM() && !isPrivateTabOpen(targetName);
                 if (isPrivateFiltered && noTabWillOpen) {
@@ -2022,31 +2500,29 @@ public class ChatOverlay extends OverlayPanel
 
             // Route to private tab if exists or should be created
             if (isPrivateTabOpen(targetName)) {
-                String tabKey = "private_" + targetName;
-                Tab pmTab = tabsByKey.get(tabKey);
-                MessageContainer pmContainer = privateContainers.get(targetName);
+                String conversationKey = MessageStore.conversationKey(targetName);
+                Tab pmTab = privateTabsByTarget.get(conversationKey);
+                MessageContainer pmContainer = privateContainers.get(conversationKey);
                 if (pmContainer != null) {
-                    pmContainer.pushLine(line, type, timestamp, senderName, receiverName, targetName, prefix, duplicateKey, collapsed);
                     routedToSpecificTab = true;
                     // Update tab icon from incoming PM sender
                     if (pmTab != null && senderIconId >= 0 && type != ChatMessageType.PRIVATECHATOUT) {
                         pmTab.setIconId(senderIconId);
                     }
-                    if (pmTab != null && messageContainer != pmContainer && !suppressOtherTabUnread && !collapsed && pmTab.getUnread() < 99) {
-                        pmTab.incrementUnread();
+                    if (pmTab != null && messageContainer != pmContainer && !suppressOtherTabUnread && !collapsed) {
+                        markUnread(pmTab);
                     }
                 }
-            } else if (config.isOpenTabOnIncomingPM() && type != ChatMessageType.PRIVATECHATOUT && type != ChatMessageType.FRIENDNOTIFICATION) {
+            } else if (!replaying && config.isOpenTabOnIncomingPM() && type != ChatMessageType.PRIVATECHATOUT && type != ChatMessageType.FRIENDNOTIFICATION) {
                 Pair<Tab, MessageContainer> pair = openTabForPrivateChat(targetName);
                 if (pair != null) {
                     // Set tab icon from incoming PM sender
                     if (senderIconId >= 0) {
                         pair.getLeft().setIconId(senderIconId);
                     }
-                    pair.getRight().pushLine(line, type, timestamp, senderName, receiverName, targetName, prefix, duplicateKey, collapsed);
                     routedToSpecificTab = true;
-                    if (messageContainer != pair.getRight() && !suppressOtherTabUnread && !collapsed && pair.getLeft().getUnread() < 99) {
-                        pair.getLeft().incrementUnread();
+                    if (messageContainer != pair.getRight() && !suppressOtherTabUnread && !collapsed) {
+                        markUnread(pair.getLeft());
                     }
                 }
             }
@@ -2056,11 +2532,10 @@ public class ChatOverlay extends OverlayPanel
         // - Message passes through filters (will actually be visible in All tab)
         // - Message didn't route to any other specific tab, OR is PUBLIC/SYSTEM type
         // - Message is not a collapsed duplicate update
-        Tab allTab = tabsByKey.get(ALL_TAB_KEY);
-        boolean isAllTabOnlyMessage = filterType == ChannelFilterType.PUBLIC || filterType == ChannelFilterType.SYSTEM;
-        boolean shouldMarkAllUnread = messagePassesFilters && (!routedToSpecificTab || isAllTabOnlyMessage) && !collapsed;
-        if (allTab != null && messageContainer != allContainer && shouldMarkAllUnread && allTab.getUnread() < 99) {
-            allTab.incrementUnread();
+        Tab allTab = routedAllTab;
+        boolean shouldMarkAllUnread = messagePassesFilters && (!routedToSpecificTab || route.isAllTabOnly()) && !collapsed;
+        if (allTab != null && messageContainer != allContainer && shouldMarkAllUnread) {
+            markUnread(allTab);
         }
     }
 
@@ -2070,8 +2545,77 @@ public class ChatOverlay extends OverlayPanel
             return false;
         }
 
-        String tabKey = "private_" + targetName;
-        return tabsByKey.containsKey(tabKey);
+        return privateTabsByTarget.containsKey(MessageStore.conversationKey(targetName));
+    }
+
+    /**
+     * Applies the configured scrollback depth to every view of the message store.
+     */
+    private void applyHistoryDepth() {
+        messageStore.setCapacity(mainConfig.performance_AllTabHistory(), mainConfig.performance_TabHistory(),
+            mainConfig.performance_PrivateHistory());
+    }
+
+    private Route[] getRoutes() {
+        Route[] table = routes;
+        if (table == null) {
+            table = buildRoutes();
+            routes = table;
+        }
+        return table;
+    }
+
+    /**
+     * Drops the routing table so it is rebuilt from the current tabs, containers and config.
+     */
+    private void invalidateRoutes() {
+        routes = null;
+    }
+
+    private Route[] buildRoutes() {
+        ChatMessageType[] types = ChatMessageType.values();
+        Route[] table = new Route[types.length];
+        List<MessageContainer> containers = new ArrayList<>(2);
+        List<Tab> tabs = new ArrayList<>(2);
+        MessageView allView = messageStore.getView(ALL_TAB_KEY);
+
+        for (ChatMessageType type : types) {
+            ChatMode mode = ChatUtil.toChatMode(type);
+            ChannelFilterType filterType = channelFilterState.mapMessageTypeToFilter(type);
+            containers.clear();
+            tabs.clear();
+
+            if (filterType == ChannelFilterType.GAME && config.isGameTabEnabled() && gameContainer != null) {
+                containers.add(gameContainer);
+                tabs.add(tabsByKey.get(GAME_TAB_KEY));
+            }
+
+            if (filterType == ChannelFilterType.TRADE && config.isTradeTabEnabled() && tradeContainer != null) {
+                containers.add(tradeContainer);
+                tabs.add(tabsByKey.get(TRADE_TAB_KEY));
+            }
+
+            if (mode != ChatMode.PRIVATE && mode != ChatMode.PUBLIC) {
+                MessageContainer modeContainer = messageContainers.get(mode.name());
+                if (modeContainer != null) {
+                    containers.add(modeContainer);
+                    tabs.add(tabsByKey.get(tabKey(mode)));
+                }
+            }
+
+            MessageView[] views = new MessageView[containers.size() + 1];
+            views[0] = allView;
+            for (int i = 0; i < containers.size(); i++) {
+                views[i + 1] = containers.get(i).getView();
+            }
+
+            boolean allTabOnly = filterType == ChannelFilterType.PUBLIC || filterType == ChannelFilterType.SYSTEM;
+            table[type.ordinal()] = new Route(mode, filterType, allTabOnly,
+                containers.toArray(new MessageContainer[0]), tabs.toArray(new Tab[0]), views);
+        }
+
+        routedAllTab = tabsByKey.get(ALL_TAB_KEY);
+        return table;
     }
 
     public Tab selectPrivateTab(String targetName) {
@@ -2135,21 +2679,16 @@ public class ChatOverlay extends OverlayPanel
             return null;
         }
 
-        MessageContainer container = privateContainers.get(targetName);
+        String conversationKey = MessageStore.conversationKey(targetName);
+        MessageContainer container = privateContainers.get(conversationKey);
         if (container == null) {
             container = messageContainerProvider.get();
             container.setPrivate(true);
             container.startUp(config.getMessageContainerConfig(), ChatMode.PRIVATE);
-            privateContainers.put(targetName, container);
+            privateContainers.put(conversationKey, container);
 
-            // Copy existing private messages for this target from the All container
-            if (allContainer != null) {
-                for (RichLine rl : allContainer.getLines()) {
-                    if (ChatUtil.isPrivateMessage(rl.getType()) && targetName.equals(rl.getTargetName())) {
-                        container.copyLine(rl);
-                    }
-                }
-            }
+            // Show the conversation kept in the shared store, which outlives the All history
+            container.setView(messageStore.getConversation(targetName));
         }
         return container;
     }
@@ -2366,21 +2905,19 @@ public class ChatOverlay extends OverlayPanel
         tabsTotalWidth = 0;
         tabsMaxScroll = 0;
         tabsByKey.clear();
+        privateTabsByTarget.clear();
         tabOrder.clear();
+        invalidateRoutes();
         availableChatModes.clear();
 
         refreshTabs(); // reinitialize tabs
     }
 
     public void clear() {
+        pendingMessages.clear();
         activeTab = null;
         messageContainer = null;
-        messageContainers.forEach((chatMode, container) -> {
-            container.clear();
-        });
-        privateContainers.forEach((targetName, container) -> {
-            container.clear();
-        });
+        messageStore.clear();
     }
 
     public void clearInputText(boolean sync) {
@@ -2514,6 +3051,11 @@ public class ChatOverlay extends OverlayPanel
     }
 
     private void syncChatInputLater() {
+        if (searchMode) {
+            updateSearch(); // the query is never synced to the game's chat input
+            return;
+        }
+
         if (syncingInput) {
             return;
         }
@@ -2547,8 +3089,7 @@ public class ChatOverlay extends OverlayPanel
     }
 
     private FontMetrics getInputFontMetrics() {
-        Font f = getFont().deriveFont((float) config.getInputFontSize());
-        return Toolkit.getDefaultToolkit().getFontMetrics(f);
+        return fontService.getMetrics(fontService.derive(getFont(), (float) config.getInputFontSize()));
     }
 
     private int indexFromMouseX(FontMetrics fm, int mouseX, int inputX, int inputW, int prefixW) {
@@ -2789,7 +3330,7 @@ public class ChatOverlay extends OverlayPanel
 
                     // caret/selection update
                     FontMetrics fm = getInputFontMetrics();
-                    String prefix = getPlayerPrefix();
+                    String prefix = getInputPrefix();
                     int prefixW = fm.stringWidth(prefix);
 
                     int clickedIdx = indexFromMouseX(fm, e.getX(), inputBounds.x, inputBounds.width, prefixW);
@@ -2833,7 +3374,7 @@ public class ChatOverlay extends OverlayPanel
             // Selection drag
             if (selectingText && inputFocused) {
                 FontMetrics fm = getInputFontMetrics();
-                String prefix = getPlayerPrefix();
+                String prefix = getInputPrefix();
                 int prefixW = fm.stringWidth(prefix);
 
                 int idx = indexFromMouseX(fm, e.getX(), inputBounds.x, inputBounds.width, prefixW);
@@ -2954,6 +3495,17 @@ public class ChatOverlay extends OverlayPanel
             final boolean ctrl = e.isControlDown();
             final boolean alt = e.isAltDown();
 
+            if (inputFocused && ctrl && code == KeyEvent.VK_F) {
+                toggleSearch();
+                e.consume();
+                return;
+            }
+            if (searchMode && code == KeyEvent.VK_ESCAPE) {
+                endSearch();
+                e.consume();
+                return;
+            }
+
             // Hide hotkey is handled by ToggleChatFeature to avoid duplicate calls
             // and ensure KeyRemapping sees the event to exit typing mode.
             // Only consume here when the Toggle feature is disabled (so the overlay
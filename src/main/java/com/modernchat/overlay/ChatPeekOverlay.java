@@ -70,7 +70,7 @@ public class ChatPeekOverlay extends MessageContainer
         // Check if we're at the GE and suppression is enabled
         // Exception: always allow fade reset for Friends Chat, Clan Chat, and Private messages
         if (mainConfig.featurePeek_SuppressFadeAtGE() && ClientUtil.isAtGrandExchange(client)) {
-            return isImportantMessageType(type);
+            return ChatUtil.isImportantMessageType(type);
         }
 
         return true;
@@ -85,10 +85,4 @@ public class ChatPeekOverlay extends MessageContainer
         Tab sourceTab = chatOverlayProvider.get().getTabsByKey().get(sourceKey);
         return sourceTab != null && sourceTab.isMuted();
     }
-
-    private boolean isImportantMessageType(ChatMessageType type) {
-        return ChatUtil.isPrivateMessage(type)
-            || ChatUtil.isFriendsChatMessage(type)
-            || ChatUtil.isClanMessage(type);
-    }
 }
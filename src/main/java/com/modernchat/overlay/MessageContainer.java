@@ -1,11 +1,16 @@
 package com.modernchat.overlay;
 
+import com.modernchat.ModernChatConfig;
 import com.modernchat.common.ChatMode;
 import com.modernchat.common.FontStyle;
 import com.modernchat.common.MessageLine;
+import com.modernchat.draw.ChannelFilterType;
+import com.modernchat.draw.CompactSegments;
 import com.modernchat.draw.ImageSegment;
 import com.modernchat.draw.Margin;
 import com.modernchat.draw.Padding;
+import com.modernchat.draw.ParsedLine;
+import com.modernchat.draw.ParsedMessage;
 import com.modernchat.draw.PrefixSegment;
 import com.modernchat.draw.RichLine;
 import com.modernchat.draw.RowHit;
@@ -14,14 +19,13 @@ import com.modernchat.draw.TimestampSegment;
 import com.modernchat.draw.VisualLine;
 import com.modernchat.feature.ToggleChatFeature;
 import com.modernchat.service.FontService;
-import com.modernchat.service.ForceRecolorService;
 import com.modernchat.service.ImageService;
+import com.modernchat.service.MessageParseService;
 import com.modernchat.util.ChatUtil;
-import com.modernchat.util.ColorUtil;
-import com.modernchat.util.FormatUtil;
+import com.modernchat.util.FenwickTree;
 import com.modernchat.util.GeometryUtil;
+import com.modernchat.util.GlyphAdvances;
 import com.modernchat.util.MathUtil;
-import com.modernchat.util.StringUtil;
 import com.modernchat.util.TextDrawUtil;
 import lombok.Getter;
 import lombok.Setter;
@@ -48,14 +52,20 @@ import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -65,15 +75,23 @@ public class MessageContainer extends Overlay
     private static final int DEFAULT_MAX_LINES = 20;
     private static final int MIN_THUMB_H = 24;
     private static final int SCROLL_TO_BOTTOM_SENTINEL = Integer.MAX_VALUE;
-
-    @Getter @Setter private int maxLines = DEFAULT_MAX_LINES;
+    // Rows wrapped beyond each edge of the viewport so small scrolls rarely hit estimated lines
+    private static final int WRAP_MARGIN_ROWS = 16;
+    // Wrap caches kept before the ones farthest from the viewport are dropped
+    private static final int MAX_WRAPPED_LINES = 512;
+    // Transparent border around row tiles for shadows and outlines that reach past the glyphs
+    private static final int TILE_PAD = 1;
+    private static final Color SEARCH_HIGHLIGHT_COLOR = new Color(255, 255, 0, 48);
 
     @Inject protected Client client;
     @Inject protected MouseManager mouseManager;
     @Inject protected FontService fontService;
     @Inject protected ImageService imageService;
     @Inject protected ChannelFilterState channelFilterState;
-    @Inject protected ForceRecolorService forceRecolorService;
+    @Inject protected MessageParseService messageParseService;
+    @Inject protected ModernChatConfig mainConfig;
+    @Inject protected RowTileCache rowTileCache;
+    @Inject protected MessageStore messageStore;
 
     // Config
     @Getter protected MessageContainerConfig config;
@@ -92,9 +110,50 @@ public class MessageContainer extends Overlay
     @Getter private volatile long fadeStartAtMs = Long.MAX_VALUE;
     @Getter private volatile boolean fading = false;
 
-    protected final Deque<RichLine> lines = new ArrayDeque<>();
+    // Lines pushed to this container itself, shown unless a shared view is attached
+    private final MessageView ownView = new MessageView(DEFAULT_MAX_LINES);
+    @Getter private MessageView view = ownView;
+    private final MessageView.Listener viewListener = new ViewListener();
+    private boolean attached = false;
+    // Latest own lines per duplicate key so collapsing a repeat does not scan the view
+    private final Map<String, List<StoredLine>> duplicateIndex = new HashMap<>();
+    // Wrapped row count per view slot; prefix sums find the first visible line without walking the history
+    private FenwickTree rowIndex = new FenwickTree(ownView.capacity());
+    // Wrap caches per view slot, only for lines that are wrapped
+    private RichLine[] wraps = new RichLine[ownView.capacity()];
+    private long measuredUntilSeq = 0;
+    private int rowFilterSignature = 0;
+    private int wrapWidth = -1;
+    private Font wrapFont = null;
+    private int avgCharWidth = 1;
+    @Getter private long searchHighlightSeq = -1;
+    // Lines in the order they were wrapped, the oldest far from the viewport lose their cache first
+    private final ArrayDeque<RichLine> wrappedLines = new ArrayDeque<>();
+    // Bumped by releaseTiles(), which dirty() calls on every config change; the tiles themselves
+    // are budgeted across all containers by the RowTileCache
+    private int tileGeneration = 1;
+    private Font tileFont = null;
+    private int tileWidth = -1;
+    private Object tileTextAntialias = null;
+    private Object tileFractionalMetrics = null;
+    private long renderFrame = 0;
+    // Retained pane: the last painted viewport and what it was painted from. Config changes
+    // reach the container through dirty(), which bumps the version
+    private BufferedImage paneImage = null;
+    private boolean paneValid = false;
+    private long paneVersion = 0;
+    private long panePaintedVersion = -1;
+    private Font paneFont = null;
+    private Object paneAntialias = null;
+    private Object paneTextAntialias = null;
+    private int paneX, paneY, paneLineH, paneScroll, paneContentH, paneFilterSignature;
+    private long paneRows, paneHighlightSeq;
+    private boolean paneChrome;
+    @Getter private volatile long lastActiveMs = System.currentTimeMillis();
     protected Font lineFont = null;
     protected FontStyle lineFontStyle = null;
+    // Parse inputs captured from the config, dropped by dirty() on every config change
+    private volatile MessageParseService.Style parseStyle = null;
 
     // Viewport and scrolling
     @Getter protected Rectangle lastViewport = null;
@@ -140,6 +199,8 @@ public class MessageContainer extends Overlay
     public void startUp(MessageContainerConfig config, ChatMode chatMode, boolean registerMouse) {
         this.config = config;
         this.chatMode = chatMode;
+        this.parseStyle = null;
+        attach();
 
         if (registerMouse) {
             this.mouse = new MouseHandler();
@@ -152,6 +213,56 @@ public class MessageContainer extends Overlay
             unregisterMouseListener();
             this.mouse = null;
         }
+        detach();
+        releaseTiles();
+    }
+
+    /**
+     * Shows a view, usually one of the shared {@link MessageStore}, instead of the lines pushed
+     * to this container; null goes back to them. Only the layout is rebuilt, no line is copied.
+     */
+    public void setView(@Nullable MessageView view) {
+        MessageView next = view != null ? view : ownView;
+        if (next == this.view)
+            return;
+
+        boolean wasAttached = attached;
+        detach();
+        this.view = next;
+        if (wasAttached)
+            attach();
+        userScrolled = false;
+        scrollOffsetPx = SCROLL_TO_BOTTOM_SENTINEL;
+    }
+
+    private void attach() {
+        if (attached)
+            return;
+        attached = true;
+        view.addListener(viewListener);
+        resetLayout();
+    }
+
+    private void detach() {
+        if (!attached)
+            return;
+        attached = false;
+        view.removeListener(viewListener);
+    }
+
+    /**
+     * Drops the layout of every line, for a new view or one whose sequence numbers changed; the
+     * rows are measured again on the next frame.
+     */
+    private void resetLayout() {
+        rowIndex = new FenwickTree(view.capacity());
+        wraps = new RichLine[view.capacity()];
+        wrappedLines.forEach(RichLine::resetCache);
+        wrappedLines.clear();
+        measuredUntilSeq = view.firstSeq();
+        releaseTiles();
+        paneVersion++;
+        searchHighlightSeq = -1;
     }
 
     @Override
@@ -167,6 +278,7 @@ public class MessageContainer extends Overlay
         updateFadeAlpha();
         if (fadeAlpha <= 0.01f)
             return null; // fully faded; nothing to render
+        lastActiveMs = System.currentTimeMillis();
 
         Rectangle vp = boundsProvider.get();
         if (vp == null || vp.width <= 0 || vp.height <= 0)
@@ -193,50 +305,28 @@ public class MessageContainer extends Overlay
         final Composite oldComp = g.getComposite();
         g.setComposite(AlphaComposite.SrcOver.derive(Math.max(0f, Math.min(1f, actualFade))));
         try {
-            if (chromeEnabled) {
-                // Backdrop and border
-                g.setColor(config.getBackdropColor());
-                g.fillRoundRect(lastViewport.x, lastViewport.y, lastViewport.width, lastViewport.height, 8, 8);
-
-                g.setColor(config.getBorderColor());
-                g.drawRoundRect(lastViewport.x, lastViewport.y, lastViewport.width, lastViewport.height, 8, 8);
-            }
-
             // Font styles
             Font font = getLineFont();
             float fontSize = config.getLineFontSize();
-            if (fontSize > 0) font = font.deriveFont(fontSize);
+            if (fontSize > 0) font = fontService.derive(font, fontSize);
             g.setFont(font);
-            FontMetrics fm = g.getFontMetrics();
+            FontMetrics fm = fontService.getMetrics(g, font);
             final int lineH = fm.getAscent() + fm.getDescent() + config.getLineSpacing();
             lastLineHeight = Math.max(1, lineH);
 
-            // Flatten wrapped lines (oldest to newest)
-            final List<VisualLine> all = new ArrayList<>(64);
-            for (RichLine rl : lines) {
-                if (!config.isShowPrivateMessages() && ChatUtil.isPrivateMessage(rl.getType())) {
-                    continue;
-                }
-
-                if (!config.isShowNpcMessages() && ChatUtil.isNpcMessage(rl.getType())) {
-                    continue;
-                }
-
-                // Channel filter check - only apply to containers with filters enabled (All tab)
-                if (applyChannelFilters && channelFilterState != null && !channelFilterState.shouldShowMessage(rl.getType())) {
-                    continue;
-                }
-
-                if (rl.getLineCache() == null) {
-                    rl.setLineCache(wrapRichLine(rl, fm, innerW));
-                }
-                final List<VisualLine> cache = rl.getLineCache();
-                if (cache != null && !cache.isEmpty())
-                    all.addAll(cache);
+            // Wrap and count rows only for lines appended or invalidated since the last frame
+            if (innerW != wrapWidth || !font.equals(wrapFont)) {
+                wrapWidth = innerW;
+                wrapFont = font;
+                avgCharWidth = Math.max(1, fm.stringWidth("abcdefghijklmnopqrstuvwxyz") / 26);
+                dirty();
             }
+            measurePending(fm, innerW);
+            wrapNearViewport(fm, innerW, lineH, msgViewport.height);
+            trimWrapCaches(lineH, msgViewport.height);
 
             // Measure content height and auto-stick to bottom when needed
-            contentHeightPx = all.size() * lineH + 5;
+            contentHeightPx = (int) Math.min(Integer.MAX_VALUE / 2, rowIndex.total() * lineH + 5);
 
             if (scrollOffsetPx == SCROLL_TO_BOTTOM_SENTINEL || (!userScrolled && contentHeightPx <= msgViewport.height)) {
                 scrollOffsetPx = Math.max(0, contentHeightPx - msgViewport.height);
@@ -244,86 +334,553 @@ public class MessageContainer extends Overlay
             // Clamp scroll
             scrollOffsetPx = MathUtil.clamp(scrollOffsetPx, 0, Math.max(0, contentHeightPx - msgViewport.height));
 
-            // Clip to message viewport and draw from top honoring scroll
-            Shape oldClip = g.getClip();
-            g.setClip(msgViewport);
+            if (mainConfig.performance_RetainedPane()) {
+                drawRetained(g, fm, sbW, left, right, lineH);
+            } else {
+                paneImage = null;
+                paneValid = false;
+                paintPane(g, fm, sbW, left, right, lineH);
+            }
+        } finally {
+            g.setComposite(oldComp);
+        }
+        return null;
+    }
 
-            int y = msgViewport.y - scrollOffsetPx + fm.getAscent();
-            for (VisualLine vl : all) {
-                if (y - fm.getAscent() > msgViewport.y + msgViewport.height)
+    /**
+     * Draws the pane from its backbuffer, repainting the buffer first when anything it shows has
+     * changed. Fading only changes the composite the buffer is drawn with.
+     */
+    private void drawRetained(Graphics2D g, FontMetrics fm, int sbW, int left, int right, int lineH) {
+        final Rectangle vp = lastViewport;
+
+        // One pixel larger than the viewport for the right and bottom edge of the border
+        if (paneImage == null || paneImage.getWidth() != vp.width + 1 || paneImage.getHeight() != vp.height + 1) {
+            paneImage = new BufferedImage(vp.width + 1, vp.height + 1, BufferedImage.TYPE_INT_ARGB);
+            paneValid = false;
+        }
+
+        if (!isPaneCurrent(g, vp, lineH)) {
+            final Graphics2D pg = paneImage.createGraphics();
+            try {
+                pg.setComposite(AlphaComposite.Clear);
+                pg.fillRect(0, 0, paneImage.getWidth(), paneImage.getHeight());
+                pg.setComposite(AlphaComposite.SrcOver);
+                pg.setRenderingHints(g.getRenderingHints());
+                pg.setFont(g.getFont());
+                pg.translate(-vp.x, -vp.y);
+                paintPane(pg, fm, sbW, left, right, lineH);
+            } finally {
+                pg.dispose();
+            }
+            // Painting may have invalidated the layout, which changes the version for next frame
+            paneValid = true;
+        }
+
+        g.drawImage(paneImage, vp.x, vp.y, null);
+    }
+
+    /**
+     * Compares what the pane was last painted from with the current state and records the
+     * current state, so nothing is allocated on frames where the pane is unchanged.
+     */
+    private boolean isPaneCurrent(Graphics2D g, Rectangle vp, int lineH) {
+        final Font font = g.getFont();
+        final Object antialias = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        final Object textAntialias = g.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        final long rows = rowIndex.total();
+        if (paneValid
+            && panePaintedVersion == paneVersion
+            && paneX == vp.x && paneY == vp.y && paneLineH == lineH
+            && paneScroll == scrollOffsetPx && paneContentH == contentHeightPx
+            && paneRows == rows
+            && paneFilterSignature == rowFilterSignature && paneHighlightSeq == searchHighlightSeq
+            && paneChrome == chromeEnabled
+            && Objects.equals(paneFont, font)
+            && paneAntialias == antialias && paneTextAntialias == textAntialias)
+            return true;
+
+        panePaintedVersion = paneVersion;
+        paneX = vp.x;
+        paneY = vp.y;
+        paneLineH = lineH;
+        paneScroll = scrollOffsetPx;
+        paneContentH = contentHeightPx;
+        paneRows = rows;
+        paneFilterSignature = rowFilterSignature;
+        paneHighlightSeq = searchHighlightSeq;
+        paneChrome = chromeEnabled;
+        paneFont = font;
+        paneAntialias = antialias;
+        paneTextAntialias = textAntialias;
+        return false;
+    }
+
+    /**
+     * Paints the backdrop, the visible rows and the scrollbar for the current layout.
+     */
+    private void paintPane(Graphics2D g, FontMetrics fm, int sbW, int left, int right, int lineH) {
+        if (chromeEnabled) {
+            // Backdrop and border
+            g.setColor(config.getBackdropColor());
+            g.fillRoundRect(lastViewport.x, lastViewport.y, lastViewport.width, lastViewport.height, 8, 8);
+
+            g.setColor(config.getBorderColor());
+            g.drawRoundRect(lastViewport.x, lastViewport.y, lastViewport.width, lastViewport.height, 8, 8);
+        }
+
+        // Clip to message viewport and draw from top honoring scroll
+        Shape oldClip = g.getClip();
+        g.setClip(msgViewport);
+
+        // Start at the first line intersecting the viewport instead of walking the whole history
+        final int viewBottom = msgViewport.y + msgViewport.height;
+        final int firstRow = scrollOffsetPx / lineH;
+        int index = lineIndexAtRow(firstRow);
+        int row = index < 0 ? 0 : firstRow - (int) rowsBefore(index);
+        int y = msgViewport.y - scrollOffsetPx + firstRow * lineH + fm.getAscent();
+        final boolean tiled = rowTileCache.getBudget() > 0 && !isSubpixelText(g);
+        if (tiled)
+            checkTileStyle(g, g.getFont(), right - left);
+        else if (tileFont != null)
+            releaseTiles();
+        renderFrame++;
+
+        boolean iconMissing = false;
+        for (; index >= 0 && index < view.size() && y - fm.getAscent() <= viewBottom; index++, row = 0) {
+            if (rowIndex.get(view.slotOf(index)) == 0)
+                continue; // filtered, collapsed or empty
+            final RichLine rl = wrapAt(index);
+            final List<VisualLine> cache = rl != null ? rl.getLineCache() : null;
+            if (cache == null)
+                continue;
+
+            final boolean highlighted = rl.getSeq() == searchHighlightSeq;
+            for (; row < cache.size(); row++) {
+                if (y - fm.getAscent() > viewBottom)
                     break; // below viewport
-                if (y + fm.getDescent() >= msgViewport.y) {
-                    int dx = left;
-                    for (TextSegment seg : vl.getSegs()) {
-                        if (seg instanceof ImageSegment) {
-                            ImageSegment imageSeg = (ImageSegment) seg;
-                            Image icon = imageSeg.getImageCache();
-
-                            if (icon == null && imageSeg.isAllowRetryImage()) {
-                                icon = imageService.getModIcon(imageSeg.getId());
-                                if (icon != null) {
-                                    imageSeg.setImageCache(icon);
-                                } else {
-                                    imageSeg.setAllowRetryImage(false);
-                                    dx += fm.getHeight();
-                                    dirty();
-                                    if (dx > right) break;
-                                    continue;
-                                }
-                            }
+                if (highlighted) {
+                    g.setColor(SEARCH_HIGHLIGHT_COLOR);
+                    g.fillRect(msgViewport.x, y - fm.getAscent(), msgViewport.width, lineH);
+                }
+                if (y + fm.getDescent() >= msgViewport.y && drawRow(g, cache.get(row), fm, left, right, y, tiled))
+                    iconMissing = true;
+                y += lineH;
+            }
+        }
 
-                            // Draw or reserve fallback width if still missing
-                            int iw = icon != null ? icon.getWidth(null) : fm.getHeight();
-                            int ih = icon != null ? icon.getHeight(null) : fm.getHeight();
-                            int lineTop = y - fm.getAscent();
-                            int iconY = lineTop + ((fm.getAscent() + fm.getDescent()) - ih) / 2;
+        g.setClip(oldClip);
+        if (tiled)
+            rowTileCache.trim();
 
-                            if (icon != null) {
-                                g.drawImage(icon, dx, iconY, null);
-                            }
-                            dx += iw;
-                            if (dx > right) break;
-                            continue;
-                        }
+        // Re-layout next frame with the fallback width of icons that failed to load
+        if (iconMissing)
+            dirty();
 
-                        String segText = seg.getText();
-                        if (dx == left && (segText == null || segText.isBlank()))
-                            continue;
+        drawScrollbar(g, msgViewport, sbW);
+    }
 
-                        // Determine color: use config override if not transparent, else segment color
-                        Color segColor = seg.getColor();
-                        if (seg instanceof TimestampSegment) {
-                            Color tsColor = config.getTimestampColor();
-                            if (tsColor.getAlpha() > 0) {
-                                segColor = tsColor;
-                            }
-                        } else if (seg instanceof PrefixSegment) {
-                            Color pfxColor = config.getTypePrefixColor();
-                            if (pfxColor.getAlpha() > 0) {
-                                segColor = pfxColor;
-                            }
-                        }
+    /**
+     * Draws one wrapped row from its tile, rendering the tile first if needed. Tiles are only as
+     * wide as the row's text. Rows whose icons are not loaded yet are drawn directly.
+     * Returns true if an icon could not be loaded.
+     */
+    private boolean drawRow(Graphics2D g, VisualLine vl, FontMetrics fm, int left, int right, int y, boolean tiled) {
+        if (!tiled)
+            return drawVisualLine(g, vl, fm, left, right, y);
+
+        BufferedImage tile = vl.getTileGeneration() == tileGeneration ? vl.getTile() : null;
+        if (tile == null) {
+            final int textW = Math.min(measureVisualLine(vl, fm), right - left);
+            if (textW <= 0)
+                return drawVisualLine(g, vl, fm, left, right, y);
+
+            final int pad = tilePad();
+            final int w = textW + 2 * pad;
+            final int h = fm.getAscent() + fm.getDescent() + 2 * pad;
+            tile = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+
+            final Graphics2D tg = tile.createGraphics();
+            final boolean iconMissing;
+            try {
+                tg.setRenderingHints(g.getRenderingHints());
+                tg.setFont(g.getFont());
+                iconMissing = drawVisualLine(tg, vl, fm, pad, w - pad, pad + fm.getAscent());
+            } finally {
+                tg.dispose();
+            }
+            if (iconMissing)
+                return drawVisualLine(g, vl, fm, left, right, y);
+
+            vl.setTile(tile);
+            vl.setTileGeneration(tileGeneration);
+            rowTileCache.add(this, vl);
+        }
+
+        vl.setTileDrawnFrame(renderFrame);
+        final int pad = tilePad();
+        g.drawImage(tile, left - pad, y - fm.getAscent() - pad, null);
+        return false;
+    }
+
+    private int tilePad() {
+        return TILE_PAD + Math.max(Math.max(0, config.getTextShadow()), Math.max(0, config.getTextOutline()));
+    }
 
-                        // Draw text with shadow or outline
-                        TextDrawUtil.drawTextWithShadow(g, segText, dx, y,
-                            segColor, config.getShadowColor(),
-                            config.getTextShadow(), config.getTextOutline());
+    /**
+     * Drops every tile when the font, row width or text rendering hints changed. Text effects
+     * and colour overrides are config, whose changes already release the tiles through
+     * {@link #dirty()}, and segment colours are covered by the rows themselves, which are
+     * rebuilt whenever a line is re-parsed or re-wrapped.
+     */
+    private void checkTileStyle(Graphics2D g, Font font, int width) {
+        final Object textAntialias = g.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        final Object fractionalMetrics = g.getRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS);
+        if (width == tileWidth && Objects.equals(font, tileFont)
+            && textAntialias == tileTextAntialias && fractionalMetrics == tileFractionalMetrics)
+            return;
+
+        releaseTiles();
+        tileFont = font;
+        tileWidth = width;
+        tileTextAntialias = textAntialias;
+        tileFractionalMetrics = fractionalMetrics;
+    }
+
+    /**
+     * Whether the row was drawn in this container's latest frame.
+     */
+    boolean isDrawnThisFrame(VisualLine vl) {
+        return vl.getTileDrawnFrame() == renderFrame;
+    }
+
+    /**
+     * Tiles are ARGB images, which only hold greyscale antialiased text. Subpixel text is drawn
+     * directly so it keeps its look.
+     */
+    private static boolean isSubpixelText(Graphics2D g) {
+        final Object aa = g.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        return aa == RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HRGB
+            || aa == RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HBGR
+            || aa == RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_VRGB
+            || aa == RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_VBGR;
+    }
+
+    private void releaseTiles() {
+        rowTileCache.releaseAll(this);
+        tileGeneration++;
+        tileFont = null;
+    }
+
+    /**
+     * Width drawVisualLine covers for the row, without drawing it.
+     */
+    private int measureVisualLine(VisualLine vl, FontMetrics fm) {
+        int w = 0;
+        for (TextSegment seg : vl.getSegs()) {
+            if (seg instanceof ImageSegment) {
+                Image icon = ((ImageSegment) seg).getImageCache();
+                w += icon != null ? icon.getWidth(null) : fm.getHeight();
+                continue;
+            }
 
-                        dx += fm.stringWidth(segText);
-                        if (dx > right)
-                            break;
+            String segText = seg.getText();
+            if (w == 0 && (segText == null || segText.isBlank()))
+                continue;
+
+            w += seg instanceof TimestampSegment
+                ? ((TimestampSegment) seg).measureWidth(fm)
+                : fm.stringWidth(segText);
+        }
+        return w;
+    }
+
+    /**
+     * Draws one wrapped row, returns true if an icon could not be loaded.
+     */
+    private boolean drawVisualLine(Graphics2D g, VisualLine vl, FontMetrics fm, int left, int right, int y) {
+        boolean iconMissing = false;
+        int dx = left;
+        for (TextSegment seg : vl.getSegs()) {
+            if (seg instanceof ImageSegment) {
+                ImageSegment imageSeg = (ImageSegment) seg;
+                Image icon = imageSeg.getImageCache();
+
+                if (icon == null && imageSeg.isAllowRetryImage()) {
+                    icon = imageService.getModIcon(imageSeg.getId());
+                    if (icon != null) {
+                        imageSeg.setImageCache(icon);
+                    } else {
+                        imageSeg.setAllowRetryImage(false);
+                        dx += fm.getHeight();
+                        iconMissing = true;
+                        if (dx > right) break;
+                        continue;
                     }
                 }
-                y += lineH;
+
+                // Draw or reserve fallback width if still missing
+                int iw = icon != null ? icon.getWidth(null) : fm.getHeight();
+                int ih = icon != null ? icon.getHeight(null) : fm.getHeight();
+                int lineTop = y - fm.getAscent();
+                int iconY = lineTop + ((fm.getAscent() + fm.getDescent()) - ih) / 2;
+
+                if (icon != null) {
+                    g.drawImage(icon, dx, iconY, null);
+                }
+                dx += iw;
+                if (dx > right) break;
+                continue;
             }
 
-            g.setClip(oldClip);
+            String segText = seg.getText();
+            if (dx == left && (segText == null || segText.isBlank()))
+                continue;
 
-            drawScrollbar(g, msgViewport, sbW);
-        } finally {
-            g.setComposite(oldComp);
+            // Determine color: use config override if not transparent, else segment color
+            Color segColor = seg.getColor();
+            if (seg instanceof TimestampSegment) {
+                Color tsColor = config.getTimestampColor();
+                if (tsColor.getAlpha() > 0) {
+                    segColor = tsColor;
+                }
+            } else if (seg instanceof PrefixSegment) {
+                Color pfxColor = config.getTypePrefixColor();
+                if (pfxColor.getAlpha() > 0) {
+                    segColor = pfxColor;
+                }
+            }
+
+            // Draw text with shadow or outline
+            TextDrawUtil.drawTextWithShadow(g, segText, dx, y,
+                segColor, config.getShadowColor(),
+                config.getTextShadow(), config.getTextOutline());
+
+            dx += seg instanceof TimestampSegment
+                ? ((TimestampSegment) seg).measureWidth(fm)
+                : fm.stringWidth(segText);
+            if (dx > right)
+                break;
         }
-        return null;
+        return iconMissing;
+    }
+
+    /**
+     * Counts rows for every line at or after the measured watermark. Lines that are not wrapped
+     * yet get an estimate, {@link #wrapNearViewport} replaces it once they come into view.
+     */
+    private void measurePending(FontMetrics fm, int innerW) {
+        final int flags = applyChannelFilters && channelFilterState != null ? channelFilterState.getFilterFlags() : 0;
+        final int signature = (config.isShowPrivateMessages() ? 1 : 0)
+            | (config.isShowNpcMessages() ? 2 : 0)
+            | (flags << 2);
+        if (signature != rowFilterSignature) {
+            // Visibility changed, recount every line; existing wrap caches are reused
+            rowFilterSignature = signature;
+            measuredUntilSeq = view.firstSeq();
+        }
+
+        for (int i = (int) Math.max(0, measuredUntilSeq - view.firstSeq()); i < view.size(); i++) {
+            final StoredLine line = view.get(i);
+            int rows = 0;
+            if (isLineVisible(line, flags)) {
+                final RichLine rl = wrapAt(i);
+                final List<VisualLine> cache = rl != null ? rl.getLineCache() : null;
+                rows = cache != null ? cache.size() : estimateRows(line.getParsed(), fm, innerW);
+            }
+            rowIndex.set(view.slotOf(i), rows);
+        }
+        measuredUntilSeq = view.nextSeq();
+    }
+
+    /**
+     * Wraps the lines around the viewport, anchoring the scroll offset to the first visible line
+     * so that estimates corrected above it do not move the content on screen.
+     */
+    private void wrapNearViewport(FontMetrics fm, int innerW, int lineH, int viewH) {
+        if (view.isEmpty())
+            return;
+
+        final int viewRows = viewH / lineH + 1;
+        if (scrollOffsetPx == SCROLL_TO_BOTTOM_SENTINEL) {
+            // Stuck to the bottom, wrap backwards from the newest line
+            long need = viewRows + WRAP_MARGIN_ROWS;
+            for (int i = view.size() - 1; i >= 0 && need > 0; i--) {
+                need -= wrapLineAt(i, fm, innerW);
+            }
+            return;
+        }
+
+        int anchor = lineIndexAtRow(scrollOffsetPx / lineH);
+        if (anchor < 0)
+            anchor = view.size() - 1; // scrolled past the end, clamped later
+        final long offsetInAnchor = scrollOffsetPx - rowsBefore(anchor) * lineH;
+
+        long need = WRAP_MARGIN_ROWS;
+        for (int i = anchor - 1; i >= 0 && need > 0; i--) {
+            need -= wrapLineAt(i, fm, innerW);
+        }
+        need = viewRows + WRAP_MARGIN_ROWS;
+        for (int i = anchor; i < view.size() && need > 0; i++) {
+            need -= wrapLineAt(i, fm, innerW);
+        }
+
+        final long anchorPx = (long) rowIndex.get(view.slotOf(anchor)) * lineH;
+        final long corrected = rowsBefore(anchor) * lineH + Math.max(0, Math.min(offsetInAnchor, anchorPx - 1));
+        scrollOffsetPx = (int) Math.min(Integer.MAX_VALUE - 1, Math.max(0, corrected));
+    }
+
+    /**
+     * Wraps the line if it only has an estimated row count and returns its rows.
+     */
+    private int wrapLineAt(int index, FontMetrics fm, int innerW) {
+        final int slot = view.slotOf(index);
+        final int rows = rowIndex.get(slot);
+        if (rows == 0)
+            return 0; // hidden
+
+        RichLine rl = wrapAt(index);
+        if (rl != null && rl.getLineCache() != null)
+            return rows;
+
+        if (rl == null) {
+            rl = new RichLine(view.get(index).getParsed());
+            rl.setSeq(view.seqAt(index));
+            wraps[slot] = rl;
+        }
+        rl.setLineCache(wrapRichLine(rl, fm, innerW));
+        wrappedLines.addLast(rl);
+        final int wrapped = rl.getLineCache().size();
+        rowIndex.set(slot, wrapped);
+        return wrapped;
+    }
+
+    /**
+     * The wrap cache of the line, or null if it is not wrapped.
+     */
+    private @Nullable RichLine wrapAt(int index) {
+        final RichLine rl = wraps[view.slotOf(index)];
+        return rl != null && rl.getSeq() == view.seqAt(index) ? rl : null;
+    }
+
+    private void dropWrap(int slot) {
+        final RichLine rl = wraps[slot];
+        if (rl != null) {
+            rl.resetCache();
+            wraps[slot] = null;
+        }
+    }
+
+    /**
+     * Drops the wrap caches of the least recently wrapped lines that are far from the viewport
+     * once more than {@link #MAX_WRAPPED_LINES} are held. Their measured row counts are kept,
+     * so they are re-wrapped without a scroll correction when they come back into view.
+     */
+    private void trimWrapCaches(int lineH, int viewH) {
+        if (wrappedLines.size() <= MAX_WRAPPED_LINES)
+            return;
+
+        final long viewRows = viewH / lineH + 1;
+        final long firstRow = scrollOffsetPx == SCROLL_TO_BOTTOM_SENTINEL
+            ? Math.max(0, rowIndex.total() - viewRows)
+            : scrollOffsetPx / lineH;
+        final long keepFrom = firstRow - viewRows - WRAP_MARGIN_ROWS;
+        final long keepTo = firstRow + 2 * viewRows + WRAP_MARGIN_ROWS;
+
+        for (int n = wrappedLines.size(); n > 0 && wrappedLines.size() > MAX_WRAPPED_LINES; n--) {
+            final RichLine rl = wrappedLines.pollFirst();
+            final int index = view.indexOfSeq(rl.getSeq());
+            if (index >= 0 && wrapAt(index) == rl && rl.getLineCache() != null) {
+                final long row = rowsBefore(index);
+                if (row + rowIndex.get(view.slotOf(index)) >= keepFrom && row <= keepTo) {
+                    wrappedLines.addLast(rl); // still near the viewport
+                    continue;
+                }
+                wraps[view.slotOf(index)] = null;
+            }
+            rl.resetCache();
+        }
+    }
+
+    /**
+     * Drops every wrap cache and row tile while keeping the measured layout and search index,
+     * for containers that have not been shown for a while.
+     */
+    public void releaseCaches() {
+        wrappedLines.forEach(RichLine::resetCache);
+        wrappedLines.clear();
+        Arrays.fill(wraps, null);
+        releaseTiles();
+        paneImage = null;
+        paneValid = false;
+        endSearch();
+    }
+
+    /**
+     * Approximate heap held by this container: its per-slot layout, wrap caches, row tiles,
+     * and pane backbuffer. The lines and their search index belong to the store and are shared.
+     */
+    public long estimateHeapBytes() {
+        long bytes = (long) rowIndex.size() * (4 + 8 + 4) + rowTileCache.getBytes(this);
+        if (paneImage != null)
+            bytes += 4L * paneImage.getWidth() * paneImage.getHeight();
+        for (RichLine rl : wraps) {
+            final List<VisualLine> cache = rl != null ? rl.getLineCache() : null;
+            if (cache == null)
+                continue;
+            bytes += 32;
+            for (VisualLine vl : cache) {
+                bytes += 56;
+                for (TextSegment seg : vl.getSegs()) {
+                    bytes += 32 + 40 + (seg.getText() != null ? 2L * seg.getText().length() : 0);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Cheap row estimate from the text length and the average glyph width, at least one row.
+     */
+    private int estimateRows(ParsedLine parsed, FontMetrics fm, int innerW) {
+        final CompactSegments body = parsed.getBody();
+        long width = (long) body.textLength() * avgCharWidth + (long) body.imageCount() * fm.getHeight();
+        if (body.getTimestamp() != null && config.isShowTimestamp())
+            width += body.getTimestamp().measureWidth(fm);
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (width + innerW - 1) / Math.max(1, innerW)));
+    }
+
+    private boolean isLineVisible(StoredLine line, int channelFilterFlags) {
+        if (line.isRemoved())
+            return false;
+
+        final ChatMessageType type = line.getParsed().getType();
+        if (!config.isShowPrivateMessages() && ChatUtil.isPrivateMessage(type))
+            return false;
+
+        if (!config.isShowNpcMessages() && ChatUtil.isNpcMessage(type))
+            return false;
+
+        // Channel filter check - only apply to containers with filters enabled (All tab)
+        if (applyChannelFilters && channelFilterState != null) {
+            ChannelFilterType filterType = channelFilterState.mapMessageTypeToFilter(type);
+            return filterType == null || !filterType.isDisabledIn(channelFilterFlags);
+        }
+        return true;
+    }
+
+    /**
+     * Wrapped rows of the lines in [0, index).
+     */
+    private long rowsBefore(int index) {
+        return rowIndex.sumWrapped(view.slotOf(0), index);
+    }
+
+    /**
+     * Index of the line containing the wrapped row, or -1 if the row is past the end.
+     */
+    private int lineIndexAtRow(int row) {
+        return rowIndex.searchWrapped(view.slotOf(0), view.size(), row);
     }
 
     private void drawScrollbar(Graphics2D g, Rectangle view, int sbW) {
@@ -401,7 +958,7 @@ public class MessageContainer extends Overlay
     }
 
     public void clearMessages() {
-        lines.clear();
+        clear();
         clearChatWidget();
     }
 
@@ -409,8 +966,32 @@ public class MessageContainer extends Overlay
      * Returns a copy of the lines for reading.
      * This allows external code to iterate over messages without modifying the internal state.
      */
-    public Deque<RichLine> getLines() {
-        return new ArrayDeque<>(lines);
+    public Deque<ParsedLine> getLines() {
+        Deque<ParsedLine> copy = new ArrayDeque<>(view.size());
+        forEachLine(copy::addLast);
+        return copy;
+    }
+
+    /**
+     * Visits the lines from oldest to newest without copying them.
+     */
+    public void forEachLine(Consumer<ParsedLine> consumer) {
+        view.forEach(line -> consumer.accept(line.getParsed()));
+    }
+
+    public int getLineCount() {
+        return view.getLineCount();
+    }
+
+    public int getMaxLines() {
+        return view.getMaxLines();
+    }
+
+    /**
+     * Lines kept of those pushed to this container itself.
+     */
+    public void setMaxLines(int maxLines) {
+        ownView.setMaxLines(maxLines);
     }
 
     public void clearChatWidget() {
@@ -442,34 +1023,6 @@ public class MessageContainer extends Overlay
         return c;
     }
 
-    private Color getColor(ChatMessageType type) {
-        Color c;
-        switch (type) {
-            case PUBLICCHAT:
-                c = config.getPublicColor();
-                break;
-            case FRIENDSCHATNOTIFICATION:
-            case FRIENDSCHAT:
-                c = config.getFriendColor();
-                break;
-            case CLAN_CHAT:
-            case CLAN_GUEST_CHAT:
-                c = config.getClanColor();
-                break;
-            case PRIVATECHATOUT:
-            case PRIVATECHAT:
-            case FRIENDNOTIFICATION:
-                c = config.getPrivateColor();
-                break;
-            case WELCOME:
-                c = Color.WHITE;
-                break;
-            default:
-                c = config.getSystemColor();
-        }
-        return c == null ? Color.WHITE : c;
-    }
-
     public void pushLine(MessageLine line) {
         ChatMessageType type = line.getType();
         String senderName = line.getSenderName();
@@ -512,167 +1065,81 @@ public class MessageContainer extends Overlay
         String duplicateKey,
         boolean collapsed
     ) {
-        type = type == null ? ChatMessageType.GAMEMESSAGE : type;
-
-        // Always use default color as base (for sender name, etc.)
-        Color baseColor = getColor(type);
-
-        // Check ForceRecolor for message body color
-        String messageToRender = s == null ? "" : s;
-        if (forceRecolorService != null) {
-            Color forceColor = forceRecolorService.getRecolorForMessage(s, type, isTransparentBackdrop());
-            if (forceColor != null) {
-                // Apply ForceRecolor only to message body, sender gets base color
-                messageToRender = applyForceRecolorToBody(s, sender, baseColor, forceColor);
-            }
-        }
-
-        RichLine rl = parseRich(messageToRender, baseColor == null ? Color.WHITE : baseColor, type, timestamp, prefix);
-        rl.setType(type);
-        rl.setSender(sender);
-        rl.setReceiver(receiver);
-        rl.setTargetName(targetName);
-        rl.setDuplicateKey(duplicateKey);
-        rl.setCollapsed(collapsed);
-
-        // If this is a collapsed message (has count suffix), remove previous messages with same key
-        if (collapsed && duplicateKey != null) {
-            lines.removeIf(line -> duplicateKey.equals(line.getDuplicateKey()));
-        }
-
-        pushRich(rl);
+        pushParsed(parse(s, type, timestamp, sender, receiver, targetName, prefix, duplicateKey, collapsed));
     }
 
     /**
-     * Applies ForceRecolor color to the message body and base color to the sender name.
-     * The message format is typically: "SenderName: message body" or just "message body"
+     * Parses a message with this container's config and backdrop. The result can be pushed
+     * to any other container sharing the same config without being parsed again.
      */
-    private String applyForceRecolorToBody(String message, String sender, Color baseColor, Color forceColor) {
-        if (message == null || message.isEmpty() || forceColor == null) {
-            return message;
-        }
-
-        String forceHex = String.format("%06X", forceColor.getRGB() & 0xFFFFFF);
-        String forceTag = "<col=" + forceHex + ">";
-        String endTag = "</col>";
+    public ParsedMessage parse(
+        String s,
+        ChatMessageType type,
+        long timestamp,
+        String sender,
+        String receiver,
+        String targetName,
+        String prefix,
+        String duplicateKey,
+        boolean collapsed
+    ) {
+        return messageParseService.parse(getParseStyle(),
+            s, type, timestamp, sender, receiver, targetName, prefix, duplicateKey, collapsed);
+    }
 
-        // If no sender, color the entire message with ForceRecolor
-        if (sender == null || sender.isEmpty()) {
-            return forceTag + message + endTag;
+    /**
+     * The config values and backdrop this container parses with. Read it on the client thread
+     * and hand it to work done elsewhere, so that work never reads the live config.
+     */
+    public MessageParseService.Style getParseStyle() {
+        MessageParseService.Style style = parseStyle;
+        boolean transparent = isTransparentBackdrop();
+        if (style == null || style.getConfig() != config || style.isTransparentBackdrop() != transparent) {
+            style = MessageParseService.Style.of(config, transparent);
+            parseStyle = style;
         }
+        return style;
+    }
 
-        // Find the ": " separator after the sender name
-        // The sender might have formatting like "<img=1>PlayerName"
-        int separatorIdx = message.indexOf(": ");
-        if (separatorIdx > 0) {
-            String senderPart = message.substring(0, separatorIdx + 2); // Include ": "
-            String bodyPart = message.substring(separatorIdx + 2);
-
-            // Apply base color to sender, ForceRecolor to body
-            String baseHex = baseColor != null
-                ? String.format("%06X", baseColor.getRGB() & 0xFFFFFF)
-                : "FFFFFF";
-            String baseTag = "<col=" + baseHex + ">";
+    /**
+     * Push an already parsed message to this container's own lines. The parsed segments are
+     * shared, only the wrap cache is owned by this container. Re-parses if the message was parsed
+     * for a different config or backdrop.
+     */
+    public void pushParsed(ParsedMessage msg) {
+        if (msg == null)
+            return;
 
-            return baseTag + senderPart + endTag + forceTag + bodyPart + endTag;
+        if (!msg.isParsedFor(config, isTransparentBackdrop())) {
+            msg = messageParseService.reparse(msg, getParseStyle());
         }
 
-        // Fallback: color the entire message with ForceRecolor if no separator found
-        return forceTag + message + endTag;
-    }
-
-    private RichLine parseRich(String s, Color base, ChatMessageType type, long timestamp, String prefix) {
-        RichLine out = new RichLine();
-        out.setTimestamp(timestamp);
-        if (s == null) return out;
-
-        Deque<Color> stack = new ArrayDeque<>();
-        Color cur = base;
-        StringBuilder buf = new StringBuilder();
-
-        // Timestamp color: use configured color if not transparent, else use line color
-        Color timestampColor = config.getTimestampColor();
-        out.getSegs().add(new TimestampSegment("[" + FormatUtil.toHmTime(timestamp) + "] ",
-            timestampColor.getAlpha() > 0 ? timestampColor : cur));
-
-        // Prefix color: use configured color if not transparent, else use line color
-        Color prefixColor = config.getTypePrefixColor();
-        out.getSegs().add(new PrefixSegment(StringUtil.isNullOrEmpty(prefix)
-            ? ChatUtil.getPrefix(type)
-            : prefix, prefixColor.getAlpha() > 0 ? prefixColor : cur));
-
-        for (int i = 0; i < s.length(); ) {
-            char ch = s.charAt(i);
-            if (ch == '<') {
-                int j = s.indexOf('>', i + 1);
-                if (j < 0)
-                    break; // unterminated, stop parsing
-
-                // preserve original case for pass-through/img emission
-                String tagRaw = s.substring(i + 1, j);
-                String tagLower = tagRaw.toLowerCase(Locale.ROOT);
-
-                // handle entities first
-                if (tagLower.equals("lt")) {
-                    buf.append('<');
-                    i = j + 1;
-                    continue;
-                }
-                if (tagLower.equals("gt")) {
-                    buf.append('>');
-                    i = j + 1;
-                    continue;
-                }
-
-                if (buf.length() > 0) {
-                    out.getSegs().add(new TextSegment(buf.toString(), cur));
-                    buf.setLength(0);
-                }
-
-                if (tagLower.startsWith("col")) {
-                    stack.push(cur);
-                    cur = ColorUtil.parseHexColor(tagRaw.substring(tagRaw.contains("=") ? 4 : 3), cur);
-                    i = j + 1;
-                    continue;
-                } else if (tagLower.equals("/col")) {
-                    cur = stack.isEmpty() ? base : stack.pop();
-                    i = j + 1;
-                    continue;
-                } else if (tagLower.equals("br")) {
-                    if (out.getSegs().isEmpty())
-                        out.getSegs().add(new TextSegment("", cur));
-                    pushRich(out);
-                    out = new RichLine();
-                    i = j + 1;
-                    continue;
-                } else if (tagLower.startsWith("img")) {
-                    try {
-                        int id = Integer.parseInt(tagRaw.substring(tagRaw.contains("=") ? 4 : 3));
-                        out.getSegs().add(new ImageSegment(id, cur));
-                        i = j + 1;
-                        continue;
-                    } catch (Exception ignored) {
-                        // ignore parse errors, treat as unknown tag
-                    }
-                }
-
-                // Unknown tag: pass it through literally instead of dropping it
-                buf.append('<').append(tagRaw).append('>');
-                i = j + 1;
-            } else {
-                buf.append(ch);
-                i++;
+        // If this is a collapsed message (has count suffix), remove the previous message with same key
+        String duplicateKey = msg.getDuplicateKey();
+        if (msg.isCollapsed() && duplicateKey != null) {
+            List<StoredLine> previous = duplicateIndex.remove(duplicateKey);
+            if (previous != null) {
+                previous.forEach(ownView::remove);
             }
         }
 
-        if (buf.length() > 0)
-            out.getSegs().add(new TextSegment(buf.toString(), cur));
+        List<StoredLine> pushed = duplicateKey != null ? new ArrayList<>(msg.getLines().size()) : null;
+        for (ParsedLine parsed : msg.getLines()) {
+            if (parsed.isEmpty())
+                continue;
+            StoredLine line = ownView.append(parsed);
+            if (pushed != null)
+                pushed.add(line);
+        }
 
-        return out;
+        if (pushed != null && !pushed.isEmpty()) {
+            duplicateIndex.put(duplicateKey, pushed);
+        }
     }
 
     private List<VisualLine> wrapRichLine(RichLine rl, FontMetrics fm, int maxWidth)
     {
+        final GlyphAdvances adv = GlyphAdvances.of(fm);
         List<VisualLine> out = new ArrayList<>();
         VisualLine cur = new VisualLine();
         int curW = 0;
@@ -720,7 +1187,9 @@ public class MessageContainer extends Overlay
                 if (txt == null || txt.isEmpty())
                     continue;
 
-                int sw = fm.stringWidth(txt);
+                int sw = s instanceof TimestampSegment
+                    ? ((TimestampSegment) s).measureWidth(fm)
+                    : adv.width(txt);
                 if (curW + sw > maxWidth && !cur.getSegs().isEmpty()) {
                     out.add(cur);
                     cur = new VisualLine();
@@ -745,15 +1214,13 @@ public class MessageContainer extends Overlay
                     if (c == ' ' || c == '\u00A0') { nextSpace = k; break; }
                 }
 
+                // Measured in place, only the pieces kept for display become strings
                 int endWord = (nextSpace == -1 ? txt.length() : nextSpace);
-                String word  = txt.substring(i, endWord);
-                String space = (nextSpace == -1 ? "" : txt.substring(endWord, endWord + 1));
-
-                int wordW = fm.stringWidth(word);
+                int wordW = adv.width(txt, i, endWord);
                 if (wordW > maxWidth) {
-                    int start = 0;
-                    while (start < word.length()) {
-                        int fit = fitCharsForWidth(fm, word, start, maxWidth - curW);
+                    int start = i;
+                    while (start < endWord) {
+                        int fit = adv.fit(txt, start, endWord, maxWidth - curW);
                         if (fit == 0) {
                             if (!cur.getSegs().isEmpty()) {
                                 out.add(cur);
@@ -761,14 +1228,13 @@ public class MessageContainer extends Overlay
                                 curW = 0;
                                 continue;
                             }
-                            fit = Math.max(1, fitCharsForWidth(fm, word, start, maxWidth));
+                            fit = Math.max(1, adv.fit(txt, start, endWord, maxWidth));
                         }
-                        String part = word.substring(start, start + fit);
-                        cur.getSegs().add(new TextSegment(part, s.getColor()));
-                        curW += fm.stringWidth(part);
+                        cur.getSegs().add(new TextSegment(txt.substring(start, start + fit), s.getColor()));
+                        curW += adv.width(txt, start, start + fit);
                         start += fit;
 
-                        if (start < word.length()) {
+                        if (start < endWord) {
                             out.add(cur);
                             cur = new VisualLine();
                             curW = 0;
@@ -780,20 +1246,20 @@ public class MessageContainer extends Overlay
                         cur = new VisualLine();
                         curW = 0;
                     }
-                    if (!word.isEmpty()) {
-                        cur.getSegs().add(new TextSegment(word, s.getColor()));
+                    if (endWord > i) {
+                        cur.getSegs().add(new TextSegment(txt.substring(i, endWord), s.getColor()));
                         curW += wordW;
                     }
                 }
 
-                if (!space.isEmpty()) {
-                    int spW = fm.stringWidth(space);
+                if (nextSpace != -1) {
+                    int spW = adv.width(txt, nextSpace, nextSpace + 1);
                     if (curW + spW > maxWidth) {
                         out.add(cur);
                         cur = new VisualLine();
                         curW = 0;
                     }
-                    cur.getSegs().add(new TextSegment(space, s.getColor()));
+                    cur.getSegs().add(new TextSegment(txt.charAt(nextSpace) == ' ' ? " " : "\u00A0", s.getColor()));
                     curW += spW;
                 }
 
@@ -806,26 +1272,14 @@ public class MessageContainer extends Overlay
         return out;
     }
 
-    private int fitCharsForWidth(FontMetrics fm, String s, int start, int remainingWidth) {
-        if (remainingWidth <= 0)
-            return 0;
-        int lo = start, hi = s.length(), ans = start;
-        while (lo <= hi) {
-            int mid = (lo + hi) >>> 1;
-            String sub = s.substring(start, mid);
-            int w = fm.stringWidth(sub);
-            if (w <= remainingWidth) {
-                ans = mid; lo = mid + 1;
-            }
-            else hi = mid - 1;
-        }
-        return Math.max(0, ans - start);
-    }
-
     public void dirty() {
-        for (RichLine line : lines) {
-            line.resetCache();
-        }
+        parseStyle = null;
+        wrappedLines.forEach(RichLine::resetCache);
+        wrappedLines.clear();
+        Arrays.fill(wraps, null);
+        releaseTiles();
+        paneVersion++;
+        measuredUntilSeq = view.firstSeq();
     }
 
     public void pushLines(List<String> lines) {
@@ -839,36 +1293,54 @@ public class MessageContainer extends Overlay
     }
 
     /**
-     * Copy a RichLine to this container by duplicating its segments.
-     * This avoids sharing lineCache between containers with different widths.
+     * Adds a line that is already parsed to this container's own lines, sharing its segments
+     * with the other views.
      */
-    public void copyLine(RichLine source) {
-        if (source == null || source.getSegs().isEmpty()) return;
-
-        RichLine copy = new RichLine();
-        copy.setType(source.getType());
-        copy.setTimestamp(source.getTimestamp());
-        copy.setSender(source.getSender());
-        copy.setReceiver(source.getReceiver());
-        copy.setTargetName(source.getTargetName());
-
-        // Copy segments (they're immutable-ish, safe to share references)
-        copy.getSegs().addAll(source.getSegs());
+    public void pushParsedLine(ParsedLine parsed) {
+        if (parsed == null || parsed.isEmpty()) return;
 
-        pushRich(copy);
+        ownView.append(parsed);
     }
 
     /**
-     * Make pushRich accessible for internal use.
+     * Keeps the row index and wrap caches in step with the view.
      */
-    protected void pushRich(RichLine rl) {
-        if (rl == null || rl.getSegs().isEmpty()) return;
-        lines.addLast(rl);
-        while (lines.size() > maxLines) lines.removeFirst();
-
-        // If we haven't scrolled up, auto-stick to bottom on next render
-        if (!userScrolled) {
-            scrollOffsetPx = SCROLL_TO_BOTTOM_SENTINEL;
+    private final class ViewListener implements MessageView.Listener
+    {
+        @Override
+        public void lineAppended(long seq, StoredLine line) {
+            paneVersion++;
+
+            // If we haven't scrolled up, auto-stick to bottom on next render
+            if (!userScrolled) {
+                scrollOffsetPx = SCROLL_TO_BOTTOM_SENTINEL;
+            }
+        }
+
+        @Override
+        public void lineEvicted(long seq, int slot, StoredLine line) {
+            rowIndex.set(slot, 0);
+            dropWrap(slot);
+            paneVersion++;
+
+            if (view == ownView) {
+                String key = line.getParsed().getDuplicateKey();
+                List<StoredLine> indexed = key != null ? duplicateIndex.get(key) : null;
+                if (indexed != null && indexed.contains(line))
+                    duplicateIndex.remove(key);
+            }
+        }
+
+        @Override
+        public void lineRemoved(long seq, int slot, StoredLine line) {
+            rowIndex.set(slot, 0);
+            dropWrap(slot);
+            paneVersion++;
+        }
+
+        @Override
+        public void viewReset() {
+            resetLayout();
         }
     }
 
@@ -893,30 +1365,85 @@ public class MessageContainer extends Overlay
         final int rowH = lastLineHeight;
         final int visualIndex = relY / rowH;
 
-        int cm = 0;
-        for (RichLine rl : lines)
-        {
-            final List<VisualLine> cache = rl.getLineCache();
-            if (cache == null || cache.isEmpty()) continue;
+        final int index = lineIndexAtRow(visualIndex);
+        if (index < 0)
+            return null;
+
+        final RichLine rl = wrapAt(index);
+        final List<VisualLine> cache = rl != null ? rl.getLineCache() : null;
+        final int row = visualIndex - (int) rowsBefore(index);
+        if (cache == null || row < 0 || row >= cache.size())
+            return null;
 
-            final int n = cache.size();
-            if (visualIndex < cm + n)
-            {
-                final VisualLine vl = cache.get(visualIndex - cm);
+        // Compute this row's on-screen rect on the fly
+        final int yTop = msgViewport.y + visualIndex * rowH - effectiveScroll;
+        final Rectangle r = new Rectangle(msgViewport.x, yTop, msgViewport.width, rowH);
 
-                // Compute this row's on-screen rect on the fly
-                final int yTop = msgViewport.y + visualIndex * rowH - effectiveScroll;
-                final Rectangle r = new Rectangle(msgViewport.x, yTop, msgViewport.width, rowH);
+        return new RowHit(r, rl, cache.get(row));
+    }
 
-                return new RowHit(r, rl, vl);
-            }
-            cm += n;
+    /**
+     * Clears the view shown, which other containers showing it see too.
+     */
+    public void clear() {
+        view.clear();
+        duplicateIndex.clear();
+        searchHighlightSeq = -1;
+        wrappedLines.forEach(RichLine::resetCache);
+        wrappedLines.clear();
+        releaseTiles();
+        paneVersion++;
+    }
+
+    /**
+     * Returns the sequence numbers of the visible lines matching every word of the query, oldest
+     * first, from the store's index filtered to the view shown. Lines pushed to this container's
+     * own view are not indexed.
+     */
+    public long[] search(String query) {
+        if (view == ownView)
+            return new long[0];
+
+        final long start = System.nanoTime();
+        final int flags = applyChannelFilters && channelFilterState != null ? channelFilterState.getFilterFlags() : 0;
+        long[] ids = messageStore.search(query);
+        long[] seqs = new long[ids.length];
+        int n = 0;
+        for (long id : ids) {
+            int index = view.indexOfId(id);
+            if (index >= 0 && isLineVisible(view.get(index), flags))
+                seqs[n++] = view.seqAt(index);
         }
-        return null;
+
+        log.debug("Search '{}' matched {} of {} stored lines in {}us, index {} terms / ~{} KB",
+            query, n, ids.length, (System.nanoTime() - start) / 1000, messageStore.getSearchIndexTerms(),
+            messageStore.getSearchIndexBytes() / 1024);
+        return n == seqs.length ? seqs : Arrays.copyOf(seqs, n);
     }
 
-    public void clear() {
-        lines.clear();
+    /**
+     * Clears the search highlight.
+     */
+    public void endSearch() {
+        searchHighlightSeq = -1;
+    }
+
+    /**
+     * Scrolls so the line is centered in the viewport and highlights it.
+     *
+     * @return false if the line has been evicted
+     */
+    public boolean scrollToSeq(long seq) {
+        final int index = view.indexOfSeq(seq);
+        if (index < 0)
+            return false;
+
+        searchHighlightSeq = seq;
+        final int rowH = Math.max(1, lastLineHeight);
+        final long top = rowsBefore(index) * rowH - Math.max(0, msgViewport.height - rowH) / 2;
+        scrollOffsetPx = (int) Math.max(0, Math.min(Integer.MAX_VALUE - 1, top));
+        userScrolled = true;
+        return true;
     }
 
     public void registerMouseListener() {
@@ -16,6 +16,8 @@ public interface MessageContainerConfig extends ChatColors
 
     boolean isShowTimestamp();
 
+    default boolean isShowTimestampSeconds() { return false; }
+
     boolean isScrollable();
 
     boolean isDrawScrollbar();
@@ -0,0 +1,274 @@
+package com.modernchat.overlay;
+
+import com.modernchat.common.ChatMode;
+import com.modernchat.draw.ParsedLine;
+import com.modernchat.util.SearchIndex;
+import net.runelite.client.util.Text;
+
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The chat history of every tab, each line stored once. A tab's history is a {@link MessageView}
+ * of references to the shared lines, and a container shows a view instead of holding lines of
+ * its own, so opening a tab or pointing the peek overlay at another one is a lookup, not a copy.
+ * Private messages are also kept per conversation, which outlives the All history. The
+ * conversations share one line budget and lose their oldest lines first, so no partner's history
+ * is dropped whole. Each line is indexed for search once, by id, and a container keeps the
+ * matches its view holds.
+ * Only accessed on the client thread.
+ */
+@Singleton
+public class MessageStore
+{
+    public static final String ALL = "ALL";
+    public static final String GAME = "GAME";
+    public static final String TRADE = "TRADE";
+    private static final String PRIVATE_PREFIX = "private_";
+
+    private long nextId = 0;
+    private int allCapacity = 1000;
+    private int tabCapacity = 1000;
+    private int privateCapacity = 5000;
+    // Live lines across every conversation, held to the private capacity
+    private int privateLines = 0;
+    private final Map<String, MessageView> views = new HashMap<>();
+    // Latest lines per duplicate key, so a collapsed repeat hides the line it replaces
+    private final Map<String, List<StoredLine>> duplicates = new HashMap<>();
+    // Private lines per conversation key, see conversationKey
+    private final Map<String, MessageView> conversations = new HashMap<>();
+    // Every line held by a view, keyed by line id
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final MessageView.Listener evictions = new MessageView.Listener()
+    {
+        @Override
+        public void lineEvicted(long seq, int slot, StoredLine line) {
+            if (!isHeld(line))
+                forget(line);
+        }
+    };
+    private final MessageView.Listener conversationEvictions = new MessageView.Listener()
+    {
+        @Override
+        public void lineAppended(long seq, StoredLine line) {
+            privateLines++;
+        }
+
+        @Override
+        public void lineEvicted(long seq, int slot, StoredLine line) {
+            if (!line.isRemoved())
+                privateLines--;
+            if (!isHeld(line))
+                forget(line);
+        }
+
+        @Override
+        public void lineRemoved(long seq, int slot, StoredLine line) {
+            privateLines--;
+        }
+    };
+
+    /**
+     * The view of a tab, created on first use. Private tab keys resolve to their conversation
+     * and the clan modes share one view, as they share one tab container.
+     */
+    public MessageView getView(String tabKey) {
+        if (tabKey.startsWith(PRIVATE_PREFIX))
+            return getConversation(tabKey.substring(PRIVATE_PREFIX.length()));
+
+        return views.computeIfAbsent(viewKey(tabKey),
+            k -> createView(ALL.equals(k) ? allCapacity : tabCapacity, evictions));
+    }
+
+    /**
+     * The view of a tab if it has been created, or null.
+     */
+    public @Nullable MessageView findView(String tabKey) {
+        if (tabKey.startsWith(PRIVATE_PREFIX))
+            return findConversation(tabKey.substring(PRIVATE_PREFIX.length()));
+        return views.get(viewKey(tabKey));
+    }
+
+    /**
+     * The private conversation with the target, created on first use.
+     */
+    public MessageView getConversation(String targetName) {
+        return conversations.computeIfAbsent(conversationKey(targetName),
+            k -> createView(tabCapacity, conversationEvictions));
+    }
+
+    /**
+     * The private conversation with the target if the store keeps one, or null. A conversation
+     * is only dropped once it is empty and no container shows it.
+     */
+    public @Nullable MessageView findConversation(String targetName) {
+        return conversations.get(conversationKey(targetName));
+    }
+
+    public int getConversationCount() {
+        return conversations.size();
+    }
+
+    /**
+     * Key of the conversation with the target, the same for every spelling of their name that
+     * the game treats as one player.
+     */
+    public static String conversationKey(@Nullable String targetName) {
+        return targetName == null ? "" : Text.standardize(targetName);
+    }
+
+    /**
+     * Lines kept by the All view, by every other view including each conversation, and by all
+     * the conversations together.
+     */
+    public void setCapacity(int allCapacity, int tabCapacity, int privateCapacity) {
+        this.allCapacity = Math.max(1, allCapacity);
+        this.tabCapacity = Math.max(1, tabCapacity);
+        this.privateCapacity = Math.max(1, privateCapacity);
+        views.forEach((key, view) -> view.setMaxLines(ALL.equals(key) ? this.allCapacity : this.tabCapacity));
+        conversations.values().forEach(view -> view.setMaxLines(this.tabCapacity));
+        trimConversations();
+    }
+
+    /**
+     * Stores the lines of one message once and appends them to each of the views.
+     */
+    public void add(List<ParsedLine> parsed, MessageView[] targets, @Nullable String duplicateKey, boolean collapsed) {
+        if (collapsed && duplicateKey != null) {
+            List<StoredLine> previous = duplicates.remove(duplicateKey);
+            if (previous != null)
+                previous.forEach(this::markRemoved);
+        }
+
+        List<StoredLine> stored = duplicateKey != null ? new ArrayList<>(parsed.size()) : null;
+        for (ParsedLine pl : parsed) {
+            if (pl.isEmpty())
+                continue;
+            StoredLine line = new StoredLine(pl, nextId++, targets);
+            searchIndex.add(line.getId(), searchText(pl));
+            for (MessageView view : targets) {
+                view.append(line);
+            }
+            if (stored != null)
+                stored.add(line);
+        }
+
+        if (stored != null && !stored.isEmpty())
+            duplicates.put(duplicateKey, stored);
+        if (privateLines > privateCapacity)
+            trimConversations();
+    }
+
+    /**
+     * Returns the ids of the lines matching every word of the query, oldest first. Message text
+     * and sender names are searched, the last word also as a prefix.
+     */
+    public long[] search(String query) {
+        return searchIndex.search(query);
+    }
+
+    /**
+     * Number of distinct words in the search index.
+     */
+    public int getSearchIndexTerms() {
+        return searchIndex.getTermCount();
+    }
+
+    /**
+     * Approximate heap used by the search index.
+     */
+    public long getSearchIndexBytes() {
+        return searchIndex.estimateBytes();
+    }
+
+    /**
+     * Lines held by the All view, which every routed line is appended to.
+     */
+    public int size() {
+        MessageView all = views.get(ALL);
+        return all != null ? all.size() : 0;
+    }
+
+    public void clear() {
+        views.values().forEach(MessageView::clear);
+        conversations.values().forEach(MessageView::clear);
+        duplicates.clear();
+        searchIndex.clear();
+        trimConversations();
+    }
+
+    private MessageView createView(int capacity, MessageView.Listener listener) {
+        MessageView view = new MessageView(capacity);
+        view.addListener(listener);
+        return view;
+    }
+
+    /**
+     * Evicts the oldest private lines, whichever conversation holds them, until they fit the
+     * private capacity. Conversations left empty are dropped unless a container shows them.
+     */
+    private void trimConversations() {
+        while (privateLines > privateCapacity) {
+            MessageView oldest = null;
+            for (MessageView view : conversations.values()) {
+                if (!view.isEmpty() && (oldest == null || view.get(0).getId() < oldest.get(0).getId()))
+                    oldest = view;
+            }
+            if (oldest == null)
+                break;
+            oldest.evictOldest();
+        }
+
+        // The store's own listener is always there, any other is a container
+        conversations.values().removeIf(view -> view.isEmpty() && view.getListenerCount() == 1);
+    }
+
+    private static boolean isHeld(StoredLine line) {
+        for (MessageView view : line.views) {
+            if (view.indexOf(line) >= 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drops the search postings and duplicate key of a line the last view holding it has evicted.
+     */
+    private void forget(StoredLine line) {
+        if (!line.removed)
+            searchIndex.remove(line.getId(), searchText(line.getParsed()));
+
+        String key = line.getParsed().getDuplicateKey();
+        List<StoredLine> indexed = key != null ? duplicates.get(key) : null;
+        if (indexed != null && indexed.contains(line))
+            duplicates.remove(key);
+    }
+
+    private void markRemoved(StoredLine line) {
+        if (line.removed)
+            return;
+        line.removed = true;
+        searchIndex.remove(line.getId(), searchText(line.getParsed()));
+        for (MessageView view : line.views) {
+            view.markRemoved(line);
+        }
+    }
+
+    private static String searchText(ParsedLine parsed) {
+        StringBuilder sb = new StringBuilder(64);
+        if (parsed.getSender() != null)
+            sb.append(parsed.getSender()).append(' ');
+        parsed.getBody().appendText(sb, false);
+        return sb.toString();
+    }
+
+    private static String viewKey(String tabKey) {
+        if (tabKey.equals(ChatMode.CLAN_GUEST.name()) || tabKey.equals(ChatMode.CLAN_GIM.name()))
+            return ChatMode.CLAN_MAIN.name();
+        return tabKey;
+    }
+}
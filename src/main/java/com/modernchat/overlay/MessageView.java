@@ -0,0 +1,284 @@
+package com.modernchat.overlay;
+
+import com.modernchat.draw.ParsedLine;
+import com.modernchat.util.RingBuffer;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The lines of one tab, as references to {@link StoredLine}s that other views may share. Keeps
+ * the newest {@link #getMaxLines()} live lines; the containers showing the view are notified of
+ * every change so they can keep their layout in step without scanning it.
+ * Only accessed on the client thread.
+ */
+public class MessageView
+{
+    /**
+     * Receives the changes of a view. Sequence numbers and slots are those of the view's ring.
+     */
+    public interface Listener
+    {
+        default void lineAppended(long seq, StoredLine line) {
+        }
+
+        default void lineEvicted(long seq, int slot, StoredLine line) {
+        }
+
+        default void lineRemoved(long seq, int slot, StoredLine line) {
+        }
+
+        /**
+         * The view was resized or compacted; every sequence number and slot may have changed.
+         */
+        default void viewReset() {
+        }
+    }
+
+    // The line cap plus room for collapsed-duplicate tombstones, which are compacted away when the
+    // ring fills so they never take the place of a live line
+    private final RingBuffer<StoredLine> lines;
+    @Getter private int maxLines;
+    private int removedCount = 0;
+    private final List<Listener> listeners = new ArrayList<>(1);
+    // Ids for lines appended with append(ParsedLine), when the view is not part of a store
+    private long nextOwnId = 0;
+    private MessageView[] self = null;
+
+    public MessageView(int maxLines) {
+        this.maxLines = Math.max(1, maxLines);
+        lines = new RingBuffer<>(ringCapacity(this.maxLines));
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public int getListenerCount() {
+        return listeners.size();
+    }
+
+    public int size() {
+        return lines.size();
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public int capacity() {
+        return lines.capacity();
+    }
+
+    public long firstSeq() {
+        return lines.firstSeq();
+    }
+
+    public long nextSeq() {
+        return lines.nextSeq();
+    }
+
+    public StoredLine get(int index) {
+        return lines.get(index);
+    }
+
+    public int slotOf(int index) {
+        return lines.slotOf(index);
+    }
+
+    public long seqAt(int index) {
+        return lines.seqAt(index);
+    }
+
+    public int indexOfSeq(long seq) {
+        return lines.indexOfSeq(seq);
+    }
+
+    /**
+     * Live lines, not counting collapsed duplicates.
+     */
+    public int getLineCount() {
+        return lines.size() - removedCount;
+    }
+
+    /**
+     * Index of the line, found by its id, or -1 if the view does not hold it.
+     */
+    public int indexOf(StoredLine line) {
+        int index = indexOfId(line.getId());
+        return index >= 0 && lines.get(index) == line ? index : -1;
+    }
+
+    /**
+     * Index of the line with the id, or -1 if the view does not hold one.
+     */
+    public int indexOfId(long id) {
+        int lo = 0, hi = lines.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long at = lines.get(mid).getId();
+            if (at < id) {
+                lo = mid + 1;
+            } else if (at > id) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Appends a line of a store, evicting the oldest lines over the cap.
+     */
+    void append(StoredLine line) {
+        if (lines.isFull()) {
+            // Live lines are trimmed to the cap, so a full ring has at least the headroom in tombstones
+            if (removedCount > 0)
+                rebuild(lines.capacity());
+            else
+                evictFirst();
+        }
+        long seq = lines.append(line);
+        for (Listener listener : listeners) {
+            listener.lineAppended(seq, line);
+        }
+
+        while (lines.size() - removedCount > maxLines) evictFirst();
+        while (removedCount > 0 && lines.first().isRemoved()) evictFirst();
+    }
+
+    /**
+     * Evicts the oldest live line and the collapsed duplicates before it, for a store trimming
+     * lines across several views.
+     */
+    void evictOldest() {
+        boolean live = false;
+        while (!live && !lines.isEmpty()) {
+            live = !lines.first().isRemoved();
+            evictFirst();
+        }
+    }
+
+    /**
+     * Appends a line owned by this view alone, for views that are not part of a store.
+     */
+    public StoredLine append(ParsedLine parsed) {
+        if (self == null)
+            self = new MessageView[]{this};
+        StoredLine line = new StoredLine(parsed, nextOwnId++, self);
+        append(line);
+        return line;
+    }
+
+    /**
+     * Hides a line replaced by a collapsed duplicate. Its slot is kept until it is the oldest.
+     */
+    void markRemoved(StoredLine line) {
+        int index = indexOf(line);
+        if (index < 0)
+            return;
+
+        removedCount++;
+        long seq = lines.seqAt(index);
+        int slot = lines.slotOf(index);
+        for (Listener listener : listeners) {
+            listener.lineRemoved(seq, slot, line);
+        }
+    }
+
+    /**
+     * Removes a line owned by this view alone, see {@link #append(ParsedLine)}.
+     */
+    public void remove(StoredLine line) {
+        if (line.removed || line.views != self)
+            return;
+        line.removed = true;
+        markRemoved(line);
+    }
+
+    public void setMaxLines(int maxLines) {
+        maxLines = Math.max(1, maxLines);
+        if (maxLines == this.maxLines)
+            return;
+        this.maxLines = maxLines;
+
+        // Evict while the slots are still the ones the listeners know
+        while (lines.size() - removedCount > maxLines) evictFirst();
+        rebuild(ringCapacity(maxLines));
+    }
+
+    /**
+     * Hands the newest {@code max} live lines to the sink, oldest first.
+     */
+    public void forEachRecent(int max, Consumer<StoredLine> sink) {
+        int start = lines.size();
+        int found = 0;
+        while (start > 0 && found < max) {
+            if (!lines.get(start - 1).isRemoved())
+                found++;
+            start--;
+        }
+
+        for (int i = start; i < lines.size(); i++) {
+            StoredLine line = lines.get(i);
+            if (!line.isRemoved())
+                sink.accept(line);
+        }
+    }
+
+    public void forEach(Consumer<StoredLine> sink) {
+        forEachRecent(Integer.MAX_VALUE, sink);
+    }
+
+    /**
+     * Evicts every line. Sequence numbers keep increasing so old ones are never reused.
+     */
+    public void clear() {
+        while (!lines.isEmpty()) evictFirst();
+    }
+
+    /**
+     * Room for the line cap and a quarter of it in tombstones, so compacting a full ring frees
+     * at least that many slots and its cost spreads over the appends that fill them again.
+     */
+    private static int ringCapacity(int maxLines) {
+        return maxLines + Math.max(16, maxLines / 4);
+    }
+
+    /**
+     * Drops the tombstones and resizes the ring. The live lines are appended again with new
+     * sequence numbers, so sequence numbers held from before no longer match any line.
+     */
+    private void rebuild(int capacity) {
+        List<StoredLine> live = new ArrayList<>(lines.size() - removedCount);
+        for (int i = 0; i < lines.size(); i++) {
+            StoredLine line = lines.get(i);
+            if (!line.isRemoved())
+                live.add(line);
+        }
+
+        lines.clear();
+        lines.setCapacity(capacity);
+        live.forEach(lines::append);
+        removedCount = 0;
+        listeners.forEach(Listener::viewReset);
+    }
+
+    private void evictFirst() {
+        long seq = lines.firstSeq();
+        int slot = lines.slotOf(0);
+        StoredLine line = lines.removeFirst();
+        if (line.isRemoved())
+            removedCount--;
+        for (Listener listener : listeners) {
+            listener.lineEvicted(seq, slot, line);
+        }
+    }
+}
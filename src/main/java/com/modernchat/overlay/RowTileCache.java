@@ -0,0 +1,106 @@
+package com.modernchat.overlay;
+
+import com.modernchat.ModernChatConfig;
+import com.modernchat.draw.VisualLine;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+
+/**
+ * Pre-rendered rows of every message container under one memory budget. Tiles are freed in the
+ * order they were rendered, skipping rows their container drew in its latest frame, so the
+ * budget holds no matter how many containers are open.
+ * Only accessed on the client thread.
+ */
+@Singleton
+public class RowTileCache
+{
+    private static final class Entry
+    {
+        final MessageContainer owner;
+        final VisualLine row;
+
+        Entry(MessageContainer owner, VisualLine row) {
+            this.owner = owner;
+            this.row = row;
+        }
+    }
+
+    @Inject private ModernChatConfig config;
+
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private long bytes = 0;
+
+    public long getBudget() {
+        return config.performance_RowTileCacheMb() * 1024L * 1024L;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Pixel memory of the tiles rendered by one container.
+     */
+    public long getBytes(MessageContainer owner) {
+        long total = 0;
+        for (Entry e : entries) {
+            if (e.owner == owner)
+                total += bytesOf(e.row.getTile());
+        }
+        return total;
+    }
+
+    /**
+     * Records a tile the owner just rendered into the row.
+     */
+    public void add(MessageContainer owner, VisualLine row) {
+        entries.addLast(new Entry(owner, row));
+        bytes += bytesOf(row.getTile());
+    }
+
+    /**
+     * Frees the tiles rendered longest ago until the budget is met. Rows drawn in their owner's
+     * latest frame are moved to the back instead, so visible rows are not re-rendered every frame.
+     */
+    public void trim() {
+        final long budget = getBudget();
+        for (int n = entries.size(); n > 0 && bytes > budget; n--) {
+            final Entry e = entries.pollFirst();
+            if (e.owner.isDrawnThisFrame(e.row)) {
+                entries.addLast(e);
+                continue;
+            }
+            release(e.row);
+        }
+    }
+
+    /**
+     * Frees every tile of one container.
+     */
+    public void releaseAll(MessageContainer owner) {
+        entries.removeIf(e -> {
+            if (e.owner != owner)
+                return false;
+            release(e.row);
+            return true;
+        });
+    }
+
+    public void clear() {
+        entries.forEach(e -> e.row.setTile(null));
+        entries.clear();
+        bytes = 0;
+    }
+
+    private void release(VisualLine row) {
+        bytes -= bytesOf(row.getTile());
+        row.setTile(null);
+    }
+
+    private static long bytesOf(BufferedImage tile) {
+        return tile != null ? 4L * tile.getWidth() * tile.getHeight() : 0;
+    }
+}
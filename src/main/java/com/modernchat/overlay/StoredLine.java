@@ -0,0 +1,27 @@
+package com.modernchat.overlay;
+
+import com.modernchat.draw.ParsedLine;
+import lombok.Getter;
+
+/**
+ * One stored chat line, shared by every {@link MessageView} it was routed to.
+ */
+public final class StoredLine
+{
+    @Getter private final ParsedLine parsed;
+
+    // Increases with every stored line, so each view holds its lines sorted by id
+    @Getter private final long id;
+
+    // Views the line was appended to, shared by the lines of a message and often by a whole route
+    final MessageView[] views;
+
+    // Set when a collapsed duplicate replaced this line in every view
+    @Getter boolean removed = false;
+
+    StoredLine(ParsedLine parsed, long id, MessageView[] views) {
+        this.parsed = parsed;
+        this.id = id;
+        this.views = views;
+    }
+}
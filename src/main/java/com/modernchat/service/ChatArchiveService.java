@@ -0,0 +1,351 @@
+package com.modernchat.service;
+
+import com.modernchat.ModernChatConfig;
+import com.modernchat.common.MessageLine;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ChatMessageType;
+import net.runelite.client.RuneLite;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only on-disk chat log. Records are length-prefixed and written by a background
+ * writer into segment files that rotate by size and day. On startup only the newest segment
+ * is memory-mapped to recover the recent history, older segments are never read.
+ */
+@Slf4j
+@Singleton
+public class ChatArchiveService implements ChatService
+{
+    private static final String ARCHIVE_DIR = "modern-chat/archive";
+    private static final String SEGMENT_PREFIX = "chat-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final long MAX_SEGMENT_BYTES = 4L * 1024 * 1024;
+    private static final int MAX_SEGMENTS = 60;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final byte RECORD_VERSION = 1;
+
+    @Inject private ModernChatConfig config;
+
+    private volatile ExecutorService writer;
+    private volatile CompletableFuture<List<MessageLine>> tail = CompletableFuture.completedFuture(Collections.emptyList());
+
+    // Writer thread state
+    private Path dataDir;
+    private FileChannel segment;
+    private Path segmentPath;
+    private LocalDate segmentDay;
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(recordBytes);
+
+    @Override
+    public void startUp() {
+        ExecutorService w = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "modern-chat-archive");
+            t.setDaemon(true);
+            return t;
+        });
+        writer = w;
+        dataDir = resolveDataDir();
+
+        // Read the previous session's tail before anything new is appended
+        tail = CompletableFuture.supplyAsync(this::readTail, w);
+    }
+
+    @Override
+    public void shutDown() {
+        ExecutorService w = writer;
+        writer = null;
+        if (w != null) {
+            w.execute(this::closeSegment);
+            w.shutdown();
+        }
+        tail = CompletableFuture.completedFuture(Collections.emptyList());
+    }
+
+    public boolean isEnabled() {
+        return writer != null && config.performance_ChatArchive();
+    }
+
+    /**
+     * Queues a message for the archive. Safe to call from any thread.
+     */
+    public void record(MessageLine line) {
+        ExecutorService w = writer;
+        if (w == null || line == null || !config.performance_ChatArchive())
+            return;
+
+        try {
+            w.execute(() -> write(line));
+        } catch (RejectedExecutionException ex) {
+            log.debug("Archive writer rejected message, shutting down?", ex);
+        }
+    }
+
+    /**
+     * Takes the history recovered from the newest segment at startup, oldest first. The returned
+     * future completes once; later calls get an empty list so history is replayed only once.
+     */
+    public CompletableFuture<List<MessageLine>> takeHistory() {
+        CompletableFuture<List<MessageLine>> history = tail;
+        tail = CompletableFuture.completedFuture(Collections.emptyList());
+        return history;
+    }
+
+    private void write(MessageLine line) {
+        try {
+            ByteBuffer record = encode(line);
+            if (record == null)
+                return;
+
+            ensureSegment(record.remaining());
+            while (record.hasRemaining()) {
+                segment.write(record);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write chat archive record", e);
+            closeSegment();
+        }
+    }
+
+    private ByteBuffer encode(MessageLine line) throws IOException {
+        recordBytes.reset();
+        recordOut.writeInt(0); // length placeholder
+        recordOut.writeByte(RECORD_VERSION);
+        recordOut.writeLong(line.getTimestamp());
+        writeString(line.getType().name());
+        writeNullable(line.getText());
+        writeNullable(line.getSenderName());
+        writeNullable(line.getReceiverName());
+        writeNullable(line.getPrefix());
+        writeNullable(line.getDuplicateKey());
+        recordOut.writeBoolean(line.isCollapsed());
+        recordOut.writeInt(line.getSenderIconId());
+        recordOut.flush();
+
+        int length = recordBytes.size() - Integer.BYTES;
+        if (length > MAX_RECORD_BYTES) {
+            log.debug("Skipping oversized chat archive record ({} bytes)", length);
+            return null;
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(recordBytes.toByteArray());
+        buf.putInt(0, length);
+        return buf;
+    }
+
+    private void writeNullable(String s) throws IOException {
+        recordOut.writeBoolean(s != null);
+        if (s != null)
+            writeString(s);
+    }
+
+    private void writeString(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        recordOut.writeInt(bytes.length);
+        recordOut.write(bytes);
+    }
+
+    private void ensureSegment(int recordSize) throws IOException {
+        LocalDate today = LocalDate.now();
+        if (segment != null && today.equals(segmentDay) && segment.size() + recordSize <= MAX_SEGMENT_BYTES)
+            return;
+
+        closeSegment();
+        ensureDir(dataDir);
+
+        // Keep appending to today's newest segment while it has room, so a short session does
+        // not leave a nearly empty tail to replay from
+        String dayPrefix = SEGMENT_PREFIX + today.format(DAY_FORMAT) + "-";
+        int index = -1;
+        for (Path p : listSegments()) {
+            String name = p.getFileName().toString();
+            if (name.startsWith(dayPrefix)) {
+                try {
+                    index = Math.max(index, Integer.parseInt(name.substring(dayPrefix.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        if (index < 0 || Files.size(segmentFile(dayPrefix, index)) + recordSize > MAX_SEGMENT_BYTES)
+            index++;
+
+        segmentPath = segmentFile(dayPrefix, index);
+        segment = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentDay = today;
+        pruneSegments();
+    }
+
+    private Path segmentFile(String dayPrefix, int index) {
+        return dataDir.resolve(String.format("%s%03d%s", dayPrefix, index, SEGMENT_SUFFIX));
+    }
+
+    private void closeSegment() {
+        if (segment == null)
+            return;
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.debug("Failed to close chat archive segment {}", segmentPath, e);
+        }
+        segment = null;
+        segmentPath = null;
+        segmentDay = null;
+    }
+
+    private void pruneSegments() {
+        List<Path> segments = listSegments();
+        for (int i = 0; i < segments.size() - MAX_SEGMENTS; i++) {
+            try {
+                Files.deleteIfExists(segments.get(i));
+            } catch (IOException e) {
+                log.debug("Failed to delete old chat archive segment {}", segments.get(i), e);
+            }
+        }
+    }
+
+    /**
+     * Segment files oldest first; names sort chronologically.
+     */
+    private List<Path> listSegments() {
+        if (dataDir == null || !Files.isDirectory(dataDir))
+            return Collections.emptyList();
+
+        try (Stream<Path> files = Files.list(dataDir)) {
+            return files
+                .filter(p -> {
+                    String name = p.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.debug("Failed to list chat archive segments", e);
+            return Collections.emptyList();
+        }
+    }
+
+    private List<MessageLine> readTail() {
+        int keep = config.performance_ArchiveReplayLines();
+        if (!config.performance_ChatArchive() || keep <= 0)
+            return Collections.emptyList();
+
+        List<Path> segments = listSegments();
+        if (segments.isEmpty())
+            return Collections.emptyList();
+
+        Path newest = segments.get(segments.size() - 1);
+        ArrayDeque<MessageLine> history = new ArrayDeque<>(keep);
+
+        try (FileChannel ch = FileChannel.open(newest, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0)
+                return Collections.emptyList();
+
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            while (buf.remaining() >= Integer.BYTES) {
+                int length = buf.getInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES || length > buf.remaining())
+                    break; // torn write at the end of the segment
+
+                int next = buf.position() + length;
+                MessageLine line = decode(buf);
+                buf.position(next);
+                if (line == null)
+                    continue;
+
+                if (history.size() == keep)
+                    history.pollFirst();
+                history.addLast(line);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read chat archive segment {}", newest, e);
+        }
+
+        log.debug("Recovered {} archived chat lines from {}", history.size(), newest.getFileName());
+        return new ArrayList<>(history);
+    }
+
+    private static MessageLine decode(ByteBuffer buf) {
+        try {
+            if (buf.get() != RECORD_VERSION)
+                return null;
+
+            long timestamp = buf.getLong();
+            ChatMessageType type = ChatMessageType.valueOf(readString(buf));
+            String text = readNullable(buf);
+            String sender = readNullable(buf);
+            String receiver = readNullable(buf);
+            String prefix = readNullable(buf);
+            String duplicateKey = readNullable(buf);
+            boolean collapsed = buf.get() != 0;
+            int senderIconId = buf.getInt();
+            return new MessageLine(text, type, timestamp, sender, receiver, prefix, duplicateKey, collapsed, senderIconId);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            return null; // unknown message type or corrupt record
+        }
+    }
+
+    private static String readNullable(ByteBuffer buf) {
+        return buf.get() != 0 ? readString(buf) : null;
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0 || length > buf.remaining())
+            throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void ensureDir(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            Files.createDirectories(dir);
+        }
+        if (!Files.isDirectory(dir)) {
+            throw new IOException("Not a directory: " + dir);
+        }
+    }
+
+    private static Path resolveDataDir() {
+        Path rlHome = null;
+        try {
+            java.io.File dir = RuneLite.RUNELITE_DIR;
+            if (dir != null) {
+                rlHome = dir.toPath();
+            }
+        } catch (Throwable ignored) {
+        }
+        if (rlHome == null) {
+            rlHome = Paths.get(System.getProperty("user.home", ".")).resolve(".runelite");
+        }
+        return rlHome.resolve(ARCHIVE_DIR);
+    }
+}
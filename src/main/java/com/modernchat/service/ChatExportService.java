@@ -0,0 +1,309 @@
+package com.modernchat.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.modernchat.common.MessageLine;
+import com.modernchat.draw.ParsedLine;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ChatMessageType;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Exports chat history to JSON Lines files and imports them back. Files are written and read
+ * one record at a time on a background thread through fixed size buffers, and imports are
+ * handed to the client thread in small batches, so the size of a log does not affect heap use.
+ */
+@Slf4j
+@Singleton
+public class ChatExportService implements ChatService
+{
+    private static final String EXPORT_DIR = "modern-chat/exports";
+    private static final String EXPORT_SUFFIX = ".jsonl";
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int IO_BUFFER_CHARS = 64 * 1024;
+    private static final int IMPORT_BATCH_SIZE = 200;
+
+    /**
+     * One exported message. Field names are the file format, keep them stable.
+     */
+    private static class Record
+    {
+        long ts;
+        String type;
+        String text;
+        String sender;
+        String receiver;
+        String prefix;
+        String duplicateKey;
+        boolean collapsed;
+    }
+
+    @Inject private Gson gson;
+    @Inject private ClientThread clientThread;
+
+    private volatile ExecutorService worker;
+    private Path dataDir;
+
+    @Override
+    public void startUp() {
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "modern-chat-export");
+            t.setDaemon(true);
+            return t;
+        });
+        dataDir = resolveDataDir();
+    }
+
+    @Override
+    public void shutDown() {
+        ExecutorService w = worker;
+        worker = null;
+        if (w != null)
+            w.shutdownNow();
+    }
+
+    public boolean isRunning() {
+        return worker != null;
+    }
+
+    /**
+     * Writes the lines to a new export file named after the label and returns the number of
+     * messages written. The list must be a snapshot the caller no longer modifies; lines are
+     * immutable so only references are held until the export finishes.
+     */
+    public CompletableFuture<Integer> export(String label, List<ParsedLine> lines) {
+        ExecutorService w = worker;
+        if (w == null)
+            return CompletableFuture.failedFuture(new IllegalStateException("Export service is not running"));
+
+        String name = "chat-" + sanitize(label) + "-" + LocalDateTime.now().format(FILE_TIME_FORMAT) + EXPORT_SUFFIX;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return write(dataDir.resolve(name), lines);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, w);
+    }
+
+    /**
+     * Reads the newest export file and hands its messages to the sink on the client thread in
+     * batches, oldest first. The next batch is read only after the sink has taken the previous
+     * one. Completes with the number of messages imported, or 0 if there is nothing to import.
+     */
+    public CompletableFuture<Integer> importLatest(Consumer<List<MessageLine>> sink) {
+        ExecutorService w = worker;
+        if (w == null)
+            return CompletableFuture.failedFuture(new IllegalStateException("Export service is not running"));
+
+        return CompletableFuture.supplyAsync(() -> {
+            Optional<Path> latest = findLatest();
+            if (latest.isEmpty())
+                return 0;
+            try {
+                return read(latest.get(), sink);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, w);
+    }
+
+    public Path getExportDir() {
+        return dataDir != null ? dataDir : resolveDataDir();
+    }
+
+    private int write(Path file, List<ParsedLine> lines) throws IOException {
+        ensureDir(dataDir);
+
+        int written = 0;
+        StringBuilder markup = new StringBuilder(256);
+        Record pending = null;
+        try (Writer out = new BufferedWriter(
+            new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), IO_BUFFER_CHARS)) {
+            for (ParsedLine pl : lines) {
+                if (Thread.currentThread().isInterrupted())
+                    throw new IOException("Export interrupted");
+
+                String prefix = pl.getBody().prefixText();
+                // Lines after the first of a multi-line message carry no prefix, join them back
+                if (prefix == null && pending != null && pending.ts == pl.getTimestamp()
+                    && pending.type.equals(pl.getType().name())) {
+                    markup.append("<br>");
+                    pl.getBody().appendMarkup(markup);
+                    continue;
+                }
+
+                if (pending != null) {
+                    writeRecord(out, pending, markup);
+                    written++;
+                }
+
+                pending = new Record();
+                pending.ts = pl.getTimestamp();
+                pending.type = pl.getType().name();
+                pending.sender = pl.getSender();
+                pending.receiver = pl.getReceiver();
+                pending.prefix = prefix != null && !prefix.isEmpty() ? prefix : null;
+                pending.duplicateKey = pl.getDuplicateKey();
+                pending.collapsed = pl.isCollapsed();
+                markup.setLength(0);
+                pl.getBody().appendMarkup(markup);
+            }
+
+            if (pending != null) {
+                writeRecord(out, pending, markup);
+                written++;
+            }
+        }
+
+        log.debug("Exported {} chat messages to {}", written, file);
+        return written;
+    }
+
+    private void writeRecord(Writer out, Record record, StringBuilder markup) throws IOException {
+        record.text = markup.toString();
+        gson.toJson(record, Record.class, out);
+        out.write('\n');
+    }
+
+    private int read(Path file, Consumer<List<MessageLine>> sink) throws IOException {
+        int imported = 0;
+        int skipped = 0;
+        List<MessageLine> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        try (BufferedReader in = new BufferedReader(
+            new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8), IO_BUFFER_CHARS)) {
+            String json;
+            while ((json = in.readLine()) != null) {
+                if (json.isBlank())
+                    continue;
+
+                MessageLine line = decode(json);
+                if (line == null) {
+                    skipped++;
+                    continue;
+                }
+
+                batch.add(line);
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    deliver(batch, sink);
+                    imported += batch.size();
+                    batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            deliver(batch, sink);
+            imported += batch.size();
+        }
+
+        log.debug("Imported {} chat messages from {} ({} skipped)", imported, file, skipped);
+        return imported;
+    }
+
+    /**
+     * Hands a batch to the client thread and waits for it, so at most one batch is in memory.
+     */
+    private void deliver(List<MessageLine> batch, Consumer<List<MessageLine>> sink) throws IOException {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        clientThread.invoke(() -> {
+            try {
+                sink.accept(batch);
+                done.complete(null);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        });
+
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import batch failed", e.getCause());
+        }
+    }
+
+    private MessageLine decode(String json) {
+        try {
+            Record r = gson.fromJson(json, Record.class);
+            if (r == null || r.type == null || r.text == null)
+                return null;
+            return new MessageLine(r.text, ChatMessageType.valueOf(r.type), r.ts, r.sender, r.receiver,
+                r.prefix, r.duplicateKey, r.collapsed, -1);
+        } catch (JsonParseException | IllegalArgumentException e) {
+            return null; // malformed line or unknown message type
+        }
+    }
+
+    private Optional<Path> findLatest() {
+        if (dataDir == null || !Files.isDirectory(dataDir))
+            return Optional.empty();
+
+        try (Stream<Path> files = Files.list(dataDir)) {
+            return files
+                .filter(p -> p.getFileName().toString().endsWith(EXPORT_SUFFIX))
+                .max(Comparator.comparingLong(p -> p.toFile().lastModified()));
+        } catch (IOException e) {
+            log.debug("Failed to list chat exports", e);
+            return Optional.empty();
+        }
+    }
+
+    private static String sanitize(String label) {
+        String s = label == null ? "" : label.replaceAll("[^A-Za-z0-9_-]+", "_").toLowerCase();
+        return s.isEmpty() ? "chat" : s;
+    }
+
+    private static void ensureDir(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            Files.createDirectories(dir);
+        }
+        if (!Files.isDirectory(dir)) {
+            throw new IOException("Not a directory: " + dir);
+        }
+    }
+
+    private static Path resolveDataDir() {
+        Path rlHome = null;
+        try {
+            java.io.File dir = RuneLite.RUNELITE_DIR;
+            if (dir != null) {
+                rlHome = dir.toPath();
+            }
+        } catch (Throwable ignored) {
+        }
+        if (rlHome == null) {
+            rlHome = Paths.get(System.getProperty("user.home", ".")).resolve(".runelite");
+        }
+        return rlHome.resolve(EXPORT_DIR);
+    }
+}
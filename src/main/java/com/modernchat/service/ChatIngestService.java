@@ -0,0 +1,124 @@
+package com.modernchat.service;
+
+import com.modernchat.ModernChatConfig;
+import com.modernchat.common.MessageLine;
+import com.modernchat.common.MessageSnapshot;
+import com.modernchat.draw.ParsedMessage;
+import com.modernchat.util.ChatUtil;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.events.ChatMessage;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Background ingest pipeline. Client state needed by the filters and the containers' parse
+ * inputs are captured on the client thread, filtering and rich text parsing run on a dedicated worker, and finished lines are
+ * handed back through a lock-free queue that is drained on the client thread at frame start.
+ */
+@Slf4j
+@Singleton
+public class ChatIngestService implements ChatService
+{
+    @Value
+    private static class IngestedMessage
+    {
+        MessageLine line;
+        @Nullable ParsedMessage parsed;
+    }
+
+    @Inject private Client client;
+    @Inject private ModernChatConfig config;
+    @Inject private MessageFilterService messageFilterService;
+
+    private final Queue<IngestedMessage> ready = new ConcurrentLinkedQueue<>();
+    private volatile ExecutorService worker;
+
+    @Override
+    public void startUp() {
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "modern-chat-ingest");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void shutDown() {
+        ExecutorService w = worker;
+        worker = null;
+        if (w != null) {
+            w.shutdownNow();
+        }
+        ready.clear();
+    }
+
+    public boolean isEnabled() {
+        return worker != null && config.performance_BackgroundIngest();
+    }
+
+    /**
+     * Snapshot the message and queue it for background processing. Must be called on the client thread.
+     *
+     * @param parser parses the finished line for the containers on the worker; it must only read
+     *               inputs captured on the client thread, see {@code ChatOverlay.newParser()}
+     */
+    public void submit(ChatMessage e, @Nullable Function<MessageLine, ParsedMessage> parser) {
+        ExecutorService w = worker;
+        if (w == null)
+            return;
+
+        MessageSnapshot snapshot = MessageSnapshot.capture(client, e, messageFilterService.requiredFacts());
+        try {
+            w.execute(() -> process(snapshot, parser));
+        } catch (RejectedExecutionException ex) {
+            log.debug("Ingest worker rejected message, shutting down?", ex);
+        }
+    }
+
+    /**
+     * Hand all finished messages to the sink. Must be called on the client thread.
+     */
+    public void drain(BiConsumer<MessageLine, ParsedMessage> sink) {
+        IngestedMessage msg;
+        while ((msg = ready.poll()) != null) {
+            sink.accept(msg.getLine(), msg.getParsed());
+        }
+    }
+
+    private void process(MessageSnapshot snapshot, @Nullable Function<MessageLine, ParsedMessage> parser) {
+        try {
+            String filteredMessage = messageFilterService.filterMessage(snapshot);
+            if (filteredMessage == null) {
+                log.debug("Message blocked by chat filter plugin");
+                return;
+            }
+
+            MessageLine line = ChatUtil.createMessageLine(snapshot, false, filteredMessage);
+            if (line == null) {
+                log.error("Failed to parse chat message event: {}", snapshot.getMessage());
+                return;
+            }
+
+            if (ChatUtil.isIgnoredMessage(line.getText(), line.getType())) {
+                log.debug("Ignoring message, type: {}, text: {}", line.getType(), line.getText());
+                return;
+            }
+
+            ParsedMessage parsed = parser != null ? parser.apply(line) : null;
+            ready.offer(new IngestedMessage(line, parsed));
+        } catch (Exception ex) {
+            log.warn("Failed to ingest chat message", ex);
+        }
+    }
+}
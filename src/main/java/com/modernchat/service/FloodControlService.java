@@ -0,0 +1,132 @@
+package com.modernchat.service;
+
+import com.modernchat.ModernChatConfig;
+import com.modernchat.common.FloodPolicy;
+import com.modernchat.common.MessageLine;
+import com.modernchat.util.ChatUtil;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ChatMessageType;
+import net.runelite.client.util.ColorUtil;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Ingest budget for busy worlds. Each message type gets a token bucket refilled at the configured
+ * rate per second; messages over budget are shed according to the {@link FloodPolicy}.
+ * Private, clan and friends chat are never shed. Client thread only.
+ */
+@Slf4j
+@Singleton
+public class FloodControlService implements ChatService
+{
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long SUMMARY_INTERVAL_MS = 1000;
+
+    @Inject private ModernChatConfig config;
+
+    private final ChatMessageType[] types = ChatMessageType.values();
+    private final double[] tokens = new double[types.length];
+    private final long[] lastRefillNanos = new long[types.length];
+    private final int[] overBudget = new int[types.length];
+    private final int[] suppressed = new int[types.length];
+    private long lastSummaryMs = 0;
+    private boolean anySuppressed = false;
+
+    @Override
+    public void startUp() {
+        reset();
+    }
+
+    @Override
+    public void shutDown() {
+        reset();
+    }
+
+    public void reset() {
+        Arrays.fill(tokens, -1);
+        Arrays.fill(lastRefillNanos, 0);
+        Arrays.fill(overBudget, 0);
+        Arrays.fill(suppressed, 0);
+        anySuppressed = false;
+    }
+
+    /**
+     * Decides whether a filtered message of this type may be shown.
+     *
+     * @param dropOldest drops the oldest not yet committed message of the type, returns false if there was none
+     */
+    public boolean admit(ChatMessageType type, Predicate<ChatMessageType> dropOldest) {
+        FloodPolicy policy = config.performance_FloodPolicy();
+        if (policy == null || policy == FloodPolicy.OFF || type == null || ChatUtil.isImportantMessageType(type))
+            return true;
+
+        int i = type.ordinal();
+        if (tryAcquire(i, System.nanoTime())) {
+            overBudget[i] = 0;
+            return true;
+        }
+
+        switch (policy) {
+            case DROP_OLDEST:
+                // Newest lines win, shed the oldest one still waiting to be rendered instead
+                return dropOldest.test(type);
+            case SAMPLE:
+                return ++overBudget[i] % Math.max(1, config.performance_FloodSampleRate()) == 0;
+            case COLLAPSE:
+                suppressed[i]++;
+                anySuppressed = true;
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Emits a "+N messages suppressed" line per type at most once per second while collapsing.
+     */
+    public void drainSummaries(Consumer<MessageLine> sink) {
+        if (!anySuppressed)
+            return;
+
+        long now = System.currentTimeMillis();
+        if (now - lastSummaryMs < SUMMARY_INTERVAL_MS)
+            return;
+        lastSummaryMs = now;
+        anySuppressed = false;
+
+        for (int i = 0; i < suppressed.length; i++) {
+            int count = suppressed[i];
+            if (count <= 0)
+                continue;
+            suppressed[i] = 0;
+
+            String text = ColorUtil.wrapWithColorTag(
+                "+" + count + (count == 1 ? " message" : " messages") + " suppressed", Color.GRAY);
+            sink.accept(new MessageLine(text, types[i], now, null, null, null, null, false, -1));
+        }
+    }
+
+    private boolean tryAcquire(int i, long nowNanos) {
+        final double budget = Math.max(1, config.performance_FloodBudget());
+
+        if (tokens[i] < 0) {
+            // First message of this type starts with a full bucket
+            tokens[i] = budget;
+        } else {
+            long elapsed = nowNanos - lastRefillNanos[i];
+            tokens[i] = Math.min(budget, tokens[i] + elapsed * budget / NANOS_PER_SECOND);
+        }
+        lastRefillNanos[i] = nowNanos;
+
+        if (tokens[i] >= 1) {
+            tokens[i] -= 1;
+            return true;
+        }
+        return false;
+    }
+}
@@ -3,13 +3,18 @@ package com.modernchat.service;
 import com.modernchat.common.FontStyle;
 import com.modernchat.common.LazyLoad;
 import lombok.Getter;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.ui.FontManager;
 
 import javax.annotation.Nullable;
 import javax.inject.Singleton;
 import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
 import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.awt.font.FontRenderContext;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
@@ -21,12 +26,34 @@ import static java.util.Map.entry;
 public class FontService implements ChatService
 {
     private static final String BASE_PATH = "/com/modernchat/fonts/";
+    // Keeps the derived font and metrics caches small when sizes are changed repeatedly
+    private static final int MAX_DERIVED = 64;
+    private static final int KEEP_STYLE = -1;
+
+    @Value
+    private static class DerivedKey
+    {
+        Font base;
+        float size;
+        int styleFlags;
+    }
+
+    @Value
+    private static class MetricsKey
+    {
+        Font font;
+        @Nullable FontRenderContext frc;
+    }
 
     @Getter
     private Map<FontStyle, LazyLoad<Font>> defaultFontsMap = null;
 
     private final Map<String, LazyLoad<Font>> customFontsMap = new ConcurrentHashMap<>();
 
+    // Canonical derived fonts, so callers share one instance and its glyph caches
+    private final Map<DerivedKey, Font> derivedFonts = new ConcurrentHashMap<>();
+    private final Map<MetricsKey, FontMetrics> metrics = new ConcurrentHashMap<>();
+
     @Override
     public void startUp() {
         defaultFontsMap = Map.ofEntries(
@@ -89,6 +116,61 @@ public class FontService implements ChatService
     @Override
     public void shutDown() {
         defaultFontsMap = null;
+        derivedFonts.clear();
+        metrics.clear();
+    }
+
+    /**
+     * Returns the cached instance of {@code base.deriveFont(size)}.
+     */
+    public Font derive(Font base, float size) {
+        return derive(base, KEEP_STYLE, size);
+    }
+
+    /**
+     * Returns the cached instance of {@code base.deriveFont(styleFlags, size)}, or of
+     * {@code base.deriveFont(size)} when the flags are negative.
+     */
+    public Font derive(Font base, int styleFlags, float size) {
+        if (base.getSize2D() == size && (styleFlags < 0 || base.getStyle() == styleFlags))
+            return base;
+
+        DerivedKey key = new DerivedKey(base, size, styleFlags);
+        Font font = derivedFonts.get(key);
+        if (font != null)
+            return font;
+
+        if (derivedFonts.size() >= MAX_DERIVED)
+            derivedFonts.clear();
+        font = styleFlags < 0 ? base.deriveFont(size) : base.deriveFont(styleFlags, size);
+        Font previous = derivedFonts.putIfAbsent(key, font);
+        return previous != null ? previous : font;
+    }
+
+    /**
+     * Metrics of the font for the graphics' render context, cached per font and context.
+     */
+    public FontMetrics getMetrics(Graphics2D g, Font font) {
+        return getMetrics(new MetricsKey(font, g.getFontRenderContext()), () -> g.getFontMetrics(font));
+    }
+
+    /**
+     * Metrics of the font for the default render context, for layout outside of painting.
+     */
+    public FontMetrics getMetrics(Font font) {
+        return getMetrics(new MetricsKey(font, null), () -> Toolkit.getDefaultToolkit().getFontMetrics(font));
+    }
+
+    private FontMetrics getMetrics(MetricsKey key, Supplier<FontMetrics> supplier) {
+        FontMetrics fm = metrics.get(key);
+        if (fm != null)
+            return fm;
+
+        if (metrics.size() >= MAX_DERIVED)
+            metrics.clear();
+        fm = supplier.get();
+        metrics.put(key, fm);
+        return fm;
     }
 
     private Font getRunescapeFont(FontStyle style) {
@@ -126,7 +208,7 @@ public class FontService implements ChatService
             return null;
         }
         Font font = fontLoader.get();
-        return font != null ? font.deriveFont((float) size) : null;
+        return font != null ? derive(font, (float) size) : null;
     }
 
     public @Nullable Font getFont(FontStyle style, int size, int styleFlags) {
@@ -140,7 +222,7 @@ public class FontService implements ChatService
             return null;
         }
         Font font = fontLoader.get();
-        return font != null ? font.deriveFont(styleFlags, (float) size) : null;
+        return font != null ? derive(font, styleFlags, (float) size) : null;
     }
 
     public void registerCustomFont(String fontName, String path) {
@@ -173,7 +255,7 @@ public class FontService implements ChatService
         if (font == null) {
             return null;
         }
-        return font.deriveFont((float) size);
+        return derive(font, (float) size);
     }
 
     public Font getCustomFont(String fontName, int size, int styleFlags) {
@@ -181,7 +263,7 @@ public class FontService implements ChatService
         if (font == null) {
             return null;
         }
-        return font.deriveFont(styleFlags, (float) size);
+        return derive(font, styleFlags, (float) size);
     }
 
     public Font safeLoadFont(String path) {
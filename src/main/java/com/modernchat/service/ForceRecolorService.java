@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 /**
@@ -50,6 +51,9 @@ public class ForceRecolorService implements ChatService {
     private volatile boolean allMessageTypes = false;
     private volatile String recolorStyle = "NONE";
 
+    // Bumped whenever patterns or colors change so callers can drop cached recolor results
+    private final AtomicInteger configVersion = new AtomicInteger();
+
     @Override
     public void startUp() {
         eventBus.register(this);
@@ -115,6 +119,11 @@ public class ForceRecolorService implements ChatService {
         transparentColors.clear();
         allMessageTypes = false;
         recolorStyle = "NONE";
+        configVersion.incrementAndGet();
+    }
+
+    public int getConfigVersion() {
+        return configVersion.get();
     }
 
     /**
@@ -197,6 +206,8 @@ public class ForceRecolorService implements ChatService {
             if (transparent != null) transparentColors.put(i, transparent);
         }
 
+        configVersion.incrementAndGet();
+
         log.debug("ForceRecolor config refreshed: style={}, allTypes={}, patterns={}, opaqueColors={}, transparentColors={}",
             recolorStyle, allMessageTypes, groupPatterns.size(), opaqueColors.size(), transparentColors.size());
     }
@@ -1,22 +1,30 @@
 package com.modernchat.service;
 
-import net.runelite.api.events.ChatMessage;
+import com.modernchat.common.MessageSnapshot;
 
 import javax.annotation.Nullable;
 
 /**
  * Interface for message filters.
  * Filters are applied in order; each receives the possibly-modified text from prior filters.
+ * Filters must only read client state from the snapshot, they may run off the client thread.
  */
 public interface MessageFilter {
 
     /**
-     * @param message the original ChatMessage (for metadata: type, sender, message node ID)
+     * @param snapshot the original ChatMessage and client state captured when it arrived
      * @param currentText the current message text (possibly modified by prior filters)
      * @return filtered text, or {@code null} to block the message entirely
      */
     @Nullable
-    String apply(ChatMessage message, String currentText);
+    String apply(MessageSnapshot snapshot, String currentText);
+
+    /**
+     * @return the {@code MessageSnapshot.FACT_} flags this filter reads in its current configuration
+     */
+    default int requiredFacts() {
+        return 0;
+    }
 
     /**
      * @return true if this filter is enabled and should be applied
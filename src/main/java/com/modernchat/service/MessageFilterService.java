@@ -1,11 +1,13 @@
 package com.modernchat.service;
 
 import com.modernchat.ModernChatConfig;
+import com.modernchat.common.MessageSnapshot;
 import com.modernchat.service.filter.AreaMutePluginFilter;
 import com.modernchat.service.filter.ChatFilterPluginFilter;
 import com.modernchat.service.filter.SpamCorpusFilter;
 import com.modernchat.service.filter.VanillaChatFilter;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
 import net.runelite.api.events.ChatMessage;
 import net.runelite.client.eventbus.EventBus;
 
@@ -21,6 +23,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 @Singleton
 public class MessageFilterService implements ChatService {
 
+    @Inject private Client client;
     @Inject private EventBus eventBus;
     @Inject private ModernChatConfig config;
 
@@ -55,7 +58,7 @@ public class MessageFilterService implements ChatService {
     }
 
     /**
-     * Run all registered filters on the given message.
+     * Run all registered filters on the given message. Must be called on the client thread.
      *
      * @param message the ChatMessage event
      * @return the filtered text, or null if the message should be blocked
@@ -64,12 +67,41 @@ public class MessageFilterService implements ChatService {
         if (!config.filters_Enabled())
             return message.getMessage();
 
-        String text = message.getMessage();
+        return filterMessage(MessageSnapshot.capture(client, message, requiredFacts()));
+    }
+
+    /**
+     * The optional snapshot facts read by the enabled filters, so the client lookups behind
+     * them are skipped when nothing uses them.
+     */
+    public int requiredFacts() {
+        if (!config.filters_Enabled())
+            return 0;
+
+        int facts = 0;
+        for (MessageFilter filter : filters) {
+            if (filter.isEnabled())
+                facts |= filter.requiredFacts();
+        }
+        return facts;
+    }
+
+    /**
+     * Run all registered filters on a message snapshot. Safe to call from any thread.
+     *
+     * @param snapshot the ChatMessage and client state captured on the client thread
+     * @return the filtered text, or null if the message should be blocked
+     */
+    public @Nullable String filterMessage(MessageSnapshot snapshot) {
+        String text = snapshot.getMessage().getMessage();
+        if (!config.filters_Enabled())
+            return text;
+
         for (MessageFilter filter : filters) {
             if (!filter.isEnabled())
                 continue;
 
-            text = filter.apply(message, text);
+            text = filter.apply(snapshot, text);
             if (text == null)
                 return null;
         }
@@ -0,0 +1,420 @@
+package com.modernchat.service;
+
+import com.modernchat.ModernChatConfig;
+import com.modernchat.draw.CompactSegments;
+import com.modernchat.draw.ImageSegment;
+import com.modernchat.draw.ParsedLine;
+import com.modernchat.draw.ParsedMessage;
+import com.modernchat.draw.PrefixSegment;
+import com.modernchat.draw.TextSegment;
+import com.modernchat.overlay.MessageContainerConfig;
+import com.modernchat.util.ChatUtil;
+import com.modernchat.util.InternPool;
+import com.modernchat.util.JagexTagTokenizer;
+import com.modernchat.util.StringUtil;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ChatMessageType;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.awt.Color;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single ingest stage that turns raw chat text into immutable {@link ParsedMessage}s.
+ * A message is parsed once (ForceRecolor lookup, body recolor and rich text parsing) and
+ * the result is shared by every container that uses the same config and backdrop.
+ */
+@Slf4j
+@Singleton
+public class MessageParseService implements ChatService
+{
+    // Parsing runs on the client thread and the ingest worker, each gets its own tokenizer
+    private static final ThreadLocal<JagexTagTokenizer> TOKENIZER = ThreadLocal.withInitial(JagexTagTokenizer::new);
+
+    // Rough upper bound on cached text so a handful of huge messages cannot pin memory
+    private static final int MAX_CACHE_WEIGHT = 512 * 1024;
+    private static final int SEGMENT_WEIGHT = 32;
+
+    @Value
+    private static class BodyKey
+    {
+        String text;
+        ChatMessageType type;
+        int baseColor;
+        boolean transparentBackdrop;
+        boolean hasSender;
+    }
+
+    @Value
+    private static class CachedBody
+    {
+        List<List<TextSegment>> parts;
+        int weight;
+    }
+
+    /**
+     * The config values and backdrop a parse depends on. Captured on the client thread, so a
+     * parse on the ingest worker never reads live config or container state.
+     */
+    @Value
+    public static class Style
+    {
+        MessageContainerConfig config;
+        boolean transparentBackdrop;
+        Color publicColor;
+        Color friendColor;
+        Color clanColor;
+        Color privateColor;
+        Color systemColor;
+        Color timestampColor;
+        Color typePrefixColor;
+        boolean showTimestampSeconds;
+
+        public static Style of(MessageContainerConfig config, boolean transparentBackdrop) {
+            return new Style(config, transparentBackdrop,
+                intern(config.getPublicColor()),
+                intern(config.getFriendColor()),
+                intern(config.getClanColor()),
+                intern(config.getPrivateColor()),
+                intern(config.getSystemColor()),
+                intern(config.getTimestampColor()),
+                intern(config.getTypePrefixColor()),
+                config.isShowTimestampSeconds());
+        }
+
+        private static Color intern(Color c) {
+            return InternPool.COLORS.intern(c == null ? Color.WHITE : c);
+        }
+    }
+
+    @Value
+    public static class CacheStats
+    {
+        long hits;
+        long misses;
+        int entries;
+        int weight;
+    }
+
+    @Inject private ModernChatConfig mainConfig;
+    @Inject private EventBus eventBus;
+    @Inject private ForceRecolorService forceRecolorService;
+    @Inject private TimestampService timestampService;
+
+    // Parsed message bodies by raw text, guarded by itself since both the client thread and the ingest worker parse
+    private final LinkedHashMap<BodyKey, CachedBody> bodyCache = new LinkedHashMap<>(256, 0.75f, true);
+    private int bodyCacheWeight = 0;
+    private int bodyCacheVersion = 0;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    @Override
+    public void startUp() {
+        eventBus.register(this);
+    }
+
+    @Override
+    public void shutDown() {
+        eventBus.unregister(this);
+        log.debug("Parse cache stats: {}", getCacheStats());
+        invalidateCache();
+    }
+
+    @Subscribe
+    public void onConfigChanged(ConfigChanged e) {
+        if (ModernChatConfig.GROUP.equals(e.getGroup())) {
+            invalidateCache();
+        }
+    }
+
+    public void invalidateCache() {
+        synchronized (bodyCache) {
+            bodyCache.clear();
+            bodyCacheWeight = 0;
+        }
+    }
+
+    public CacheStats getCacheStats() {
+        synchronized (bodyCache) {
+            return new CacheStats(cacheHits.get(), cacheMisses.get(), bodyCache.size(), bodyCacheWeight);
+        }
+    }
+
+    public ParsedMessage parse(
+        Style style,
+        String s,
+        ChatMessageType type,
+        long timestamp,
+        String sender,
+        String receiver,
+        String targetName,
+        String prefix,
+        String duplicateKey,
+        boolean collapsed
+    ) {
+        type = type == null ? ChatMessageType.GAMEMESSAGE : type;
+
+        // Always use default color as base (for sender name, etc.)
+        Color baseColor = getBaseColor(style, type);
+
+        List<List<TextSegment>> parts = getBody(s, type, sender, baseColor, style.isTransparentBackdrop());
+        List<ParsedLine> lines = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            List<TextSegment> segs = i == 0
+                ? withHeader(style, parts.get(i), baseColor, type, timestamp, prefix)
+                : parts.get(i);
+            if (segs.isEmpty())
+                continue;
+            lines.add(new ParsedLine(CompactSegments.of(segs), type, timestamp,
+                InternPool.STRINGS.intern(sender),
+                InternPool.STRINGS.intern(receiver),
+                InternPool.STRINGS.intern(targetName),
+                duplicateKey,
+                collapsed));
+        }
+
+        return new ParsedMessage(s, type, timestamp, sender, receiver, targetName, prefix,
+            duplicateKey, collapsed, style.getConfig(), style.isTransparentBackdrop(), Collections.unmodifiableList(lines));
+    }
+
+    /**
+     * Re-parses a message for a different config or backdrop.
+     */
+    public ParsedMessage reparse(ParsedMessage msg, Style style) {
+        return parse(style, msg.getText(), msg.getType(), msg.getTimestamp(),
+            msg.getSender(), msg.getReceiver(), msg.getTargetName(), msg.getPrefix(),
+            msg.getDuplicateKey(), msg.isCollapsed());
+    }
+
+    /**
+     * Returns the parsed body segments for a message, shared with earlier identical messages
+     * when the cache holds them. The returned lists must not be modified.
+     */
+    private List<List<TextSegment>> getBody(
+        String s, ChatMessageType type, String sender, Color baseColor, boolean transparentBackdrop
+    ) {
+        final int maxEntries = mainConfig.performance_ParseCacheSize();
+        if (maxEntries <= 0)
+            return parseBody(s, type, sender, baseColor, transparentBackdrop);
+
+        BodyKey key = new BodyKey(s == null ? "" : s, type, baseColor.getRGB(), transparentBackdrop,
+            !StringUtil.isNullOrEmpty(sender));
+
+        synchronized (bodyCache) {
+            // ForceRecolor patterns or colors changed since these bodies were parsed
+            int version = forceRecolorService.getConfigVersion();
+            if (version != bodyCacheVersion) {
+                bodyCache.clear();
+                bodyCacheWeight = 0;
+                bodyCacheVersion = version;
+            }
+
+            CachedBody cached = bodyCache.get(key);
+            if (cached != null) {
+                cacheHits.incrementAndGet();
+                return cached.getParts();
+            }
+        }
+
+        cacheMisses.incrementAndGet();
+        List<List<TextSegment>> parts = parseBody(s, type, sender, baseColor, transparentBackdrop);
+
+        int weight = key.getText().length();
+        for (List<TextSegment> part : parts) {
+            weight += part.size() * SEGMENT_WEIGHT;
+        }
+        if (weight > MAX_CACHE_WEIGHT / 4)
+            return parts;
+
+        synchronized (bodyCache) {
+            CachedBody previous = bodyCache.put(key, new CachedBody(parts, weight));
+            if (previous != null)
+                bodyCacheWeight -= previous.getWeight();
+            bodyCacheWeight += weight;
+
+            Iterator<CachedBody> it = bodyCache.values().iterator();
+            while (it.hasNext() && (bodyCache.size() > maxEntries || bodyCacheWeight > MAX_CACHE_WEIGHT)) {
+                bodyCacheWeight -= it.next().getWeight();
+                it.remove();
+            }
+        }
+        return parts;
+    }
+
+    private List<List<TextSegment>> parseBody(
+        String s, ChatMessageType type, String sender, Color baseColor, boolean transparentBackdrop
+    ) {
+        // Check ForceRecolor for message body color
+        String messageToRender = s == null ? "" : s;
+        if (forceRecolorService != null) {
+            Color forceColor = forceRecolorService.getRecolorForMessage(s, type, transparentBackdrop);
+            if (forceColor != null) {
+                // Apply ForceRecolor only to message body, sender gets base color
+                messageToRender = applyForceRecolorToBody(s, sender, baseColor, forceColor);
+            }
+        }
+
+        List<List<TextSegment>> parts = parseRich(messageToRender, baseColor);
+        for (int i = 0; i < parts.size(); i++) {
+            parts.set(i, Collections.unmodifiableList(parts.get(i)));
+        }
+        return parts;
+    }
+
+    /**
+     * Prepends the per-message timestamp and type prefix to the first body line.
+     */
+    private List<TextSegment> withHeader(
+        Style style, List<TextSegment> body, Color base, ChatMessageType type, long timestamp, String prefix
+    ) {
+        List<TextSegment> out = new ArrayList<>(body.size() + 2);
+
+        // Timestamp color: use configured color if not transparent, else use line color
+        Color timestampColor = style.getTimestampColor();
+        out.add(timestampService.getSegment(timestamp, style.isShowTimestampSeconds(),
+            timestampColor.getAlpha() > 0 ? timestampColor : base));
+
+        // Prefix color: use configured color if not transparent, else use line color
+        Color prefixColor = style.getTypePrefixColor();
+        out.add(new PrefixSegment(StringUtil.isNullOrEmpty(prefix)
+            ? ChatUtil.getPrefix(type)
+            : InternPool.STRINGS.intern(prefix), prefixColor.getAlpha() > 0 ? prefixColor : base));
+
+        out.addAll(body);
+        return out;
+    }
+
+    public static Color getBaseColor(Style style, ChatMessageType type) {
+        switch (type) {
+            case PUBLICCHAT:
+                return style.getPublicColor();
+            case FRIENDSCHATNOTIFICATION:
+            case FRIENDSCHAT:
+                return style.getFriendColor();
+            case CLAN_CHAT:
+            case CLAN_GUEST_CHAT:
+                return style.getClanColor();
+            case PRIVATECHATOUT:
+            case PRIVATECHAT:
+            case FRIENDNOTIFICATION:
+                return style.getPrivateColor();
+            case WELCOME:
+                return Color.WHITE;
+            default:
+                return style.getSystemColor();
+        }
+    }
+
+    /**
+     * Applies ForceRecolor color to the message body and base color to the sender name.
+     * The message format is typically: "SenderName: message body" or just "message body"
+     */
+    private String applyForceRecolorToBody(String message, String sender, Color baseColor, Color forceColor) {
+        if (message == null || message.isEmpty() || forceColor == null) {
+            return message;
+        }
+
+        String forceHex = String.format("%06X", forceColor.getRGB() & 0xFFFFFF);
+        String forceTag = "<col=" + forceHex + ">";
+        String endTag = "</col>";
+
+        // If no sender, color the entire message with ForceRecolor
+        if (sender == null || sender.isEmpty()) {
+            return forceTag + message + endTag;
+        }
+
+        // Find the ": " separator after the sender name
+        // The sender might have formatting like "<img=1>PlayerName"
+        int separatorIdx = message.indexOf(": ");
+        if (separatorIdx > 0) {
+            String senderPart = message.substring(0, separatorIdx + 2); // Include ": "
+            String bodyPart = message.substring(separatorIdx + 2);
+
+            // Apply base color to sender, ForceRecolor to body
+            String baseHex = baseColor != null
+                ? String.format("%06X", baseColor.getRGB() & 0xFFFFFF)
+                : "FFFFFF";
+            String baseTag = "<col=" + baseHex + ">";
+
+            return baseTag + senderPart + endTag + forceTag + bodyPart + endTag;
+        }
+
+        // Fallback: color the entire message with ForceRecolor if no separator found
+        return forceTag + message + endTag;
+    }
+
+    /**
+     * Parses Jagex rich text into segment lists, one per {@code <br>} separated line.
+     */
+    private List<List<TextSegment>> parseRich(String s, Color base) {
+        List<List<TextSegment>> parts = new ArrayList<>(1);
+        List<TextSegment> out = new ArrayList<>();
+        parts.add(out);
+
+        Deque<Color> stack = new ArrayDeque<>();
+        Color cur = base;
+        StringBuilder buf = new StringBuilder();
+
+        JagexTagTokenizer tok = TOKENIZER.get().reset(s);
+        for (int t = tok.next(); t != JagexTagTokenizer.END; t = tok.next()) {
+            switch (t) {
+                case JagexTagTokenizer.TEXT:
+                    buf.append(s, tok.getStart(), tok.getEnd());
+                    continue;
+                case JagexTagTokenizer.LT:
+                    buf.append('<');
+                    continue;
+                case JagexTagTokenizer.GT:
+                    buf.append('>');
+                    continue;
+                case JagexTagTokenizer.UNKNOWN:
+                    // Unknown tag: pass it through literally instead of dropping it
+                    buf.append(s, tok.getStart(), tok.getEnd());
+                    continue;
+            }
+
+            if (buf.length() > 0) {
+                out.add(new TextSegment(buf.toString(), cur));
+                buf.setLength(0);
+            }
+
+            switch (t) {
+                case JagexTagTokenizer.COL:
+                    stack.push(cur);
+                    if (tok.hasColor() && tok.getColor() != cur.getRGB())
+                        cur = InternPool.color(tok.getColor());
+                    break;
+                case JagexTagTokenizer.END_COL:
+                    cur = stack.isEmpty() ? base : stack.pop();
+                    break;
+                case JagexTagTokenizer.BR:
+                    // The first line always gets the timestamp and prefix, keep later blank lines
+                    if (out.isEmpty() && parts.size() > 1)
+                        out.add(new TextSegment("", cur));
+                    out = new ArrayList<>();
+                    parts.add(out);
+                    break;
+                case JagexTagTokenizer.IMG:
+                    out.add(new ImageSegment(tok.getImageId(), cur));
+                    break;
+            }
+        }
+
+        if (buf.length() > 0)
+            out.add(new TextSegment(buf.toString(), cur));
+
+        return parts;
+    }
+}
@@ -0,0 +1,85 @@
+package com.modernchat.service;
+
+import com.modernchat.draw.TimestampSegment;
+import com.modernchat.util.FormatUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Singleton;
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Formats message timestamps once per minute (or second) and hands out one shared
+ * {@link TimestampSegment} per colour for every line stamped in that period.
+ */
+@Slf4j
+@Singleton
+public class TimestampService implements ChatService
+{
+    private final Slot minutes = new Slot(60_000L, false);
+    private final Slot seconds = new Slot(1_000L, true);
+
+    @Override
+    public void startUp() {
+
+    }
+
+    @Override
+    public void shutDown() {
+        minutes.clear();
+        seconds.clear();
+    }
+
+    /**
+     * Returns the {@code [HH:mm] } or {@code [HH:mm:ss] } string for the given time.
+     */
+    public String format(long epochMillis, boolean withSeconds) {
+        return (withSeconds ? seconds : minutes).getText(epochMillis);
+    }
+
+    public TimestampSegment getSegment(long epochMillis, boolean withSeconds, Color color) {
+        return (withSeconds ? seconds : minutes).getSegment(epochMillis, color);
+    }
+
+    private static final class Slot
+    {
+        private final long periodMs;
+        private final boolean withSeconds;
+        private final Map<Color, TimestampSegment> segments = new HashMap<>(4);
+        private long period = Long.MIN_VALUE;
+        private String text = null;
+
+        Slot(long periodMs, boolean withSeconds) {
+            this.periodMs = periodMs;
+            this.withSeconds = withSeconds;
+        }
+
+        // Parsing runs on both the client thread and the ingest worker
+        synchronized String getText(long epochMillis) {
+            long p = Math.floorDiv(epochMillis, periodMs);
+            if (p != period || text == null) {
+                period = p;
+                text = "[" + (withSeconds ? FormatUtil.toHmsTime(epochMillis) : FormatUtil.toHmTime(epochMillis)) + "] ";
+                segments.clear();
+            }
+            return text;
+        }
+
+        synchronized TimestampSegment getSegment(long epochMillis, Color color) {
+            String t = getText(epochMillis);
+            TimestampSegment seg = segments.get(color);
+            if (seg == null) {
+                seg = new TimestampSegment(t, color);
+                segments.put(color, seg);
+            }
+            return seg;
+        }
+
+        synchronized void clear() {
+            period = Long.MIN_VALUE;
+            text = null;
+            segments.clear();
+        }
+    }
+}
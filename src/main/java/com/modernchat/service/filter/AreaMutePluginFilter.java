@@ -3,16 +3,12 @@ package com.modernchat.service.filter;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.modernchat.ModernChatConfig;
+import com.modernchat.common.MessageSnapshot;
 import com.modernchat.service.ChatService;
 import com.modernchat.service.MessageFilter;
 import com.modernchat.util.ConfigUtil;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
-import net.runelite.api.Client;
-import net.runelite.api.FriendsChatManager;
-import net.runelite.api.Player;
-import net.runelite.api.clan.ClanChannel;
-import net.runelite.api.events.ChatMessage;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
@@ -20,7 +16,6 @@ import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.events.PluginChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginManager;
-import net.runelite.client.util.Text;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -31,6 +26,7 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Built-in filter that replicates the Area Mute plugin's filtering logic.
@@ -49,7 +45,6 @@ public class AreaMutePluginFilter implements MessageFilter, ChatService {
         ChatMessageType.AUTOTYPER
     );
 
-    @Inject private Client client;
     @Inject private ConfigManager configManager;
     @Inject private PluginManager pluginManager;
     @Inject private EventBus eventBus;
@@ -61,7 +56,7 @@ public class AreaMutePluginFilter implements MessageFilter, ChatService {
     private volatile boolean filterFriends = false;
     private volatile boolean filterClanMates = false;
     private volatile boolean filterFriendChat = false;
-    private final Set<Integer> mutedRegions = new HashSet<>();
+    private final Set<Integer> mutedRegions = ConcurrentHashMap.newKeySet();
 
     // Cache of message ID -> should block
     private final LinkedHashMap<Integer, Boolean> chatCache = new LinkedHashMap<>() {
@@ -90,7 +85,9 @@ public class AreaMutePluginFilter implements MessageFilter, ChatService {
     @Override
     public void shutDown() {
         eventBus.unregister(this);
-        chatCache.clear();
+        synchronized (chatCache) {
+            chatCache.clear();
+        }
         mutedRegions.clear();
     }
 
@@ -112,78 +109,50 @@ public class AreaMutePluginFilter implements MessageFilter, ChatService {
     }
 
     @Override
-    public @Nullable String apply(ChatMessage message, String currentText) {
+    public int requiredFacts() {
+        return pluginEnabled && !mutedRegions.isEmpty()
+            ? MessageSnapshot.FACT_SOCIAL | MessageSnapshot.FACT_REGION
+            : 0;
+    }
+
+    @Override
+    public @Nullable String apply(MessageSnapshot snapshot, String currentText) {
         if (!pluginEnabled || mutedRegions.isEmpty())
             return currentText;
 
-        ChatMessageType type = message.getType();
+        ChatMessageType type = snapshot.getMessage().getType();
         if (!FILTERED_TYPES.contains(type))
             return currentText;
 
-        String name = Text.removeTags(message.getName());
-        int messageId = message.getMessageNode().getId();
-
-        // Find the player actor to get their region
-        Player actor = findPlayer(name);
+        int messageId = snapshot.getMessageId();
 
-        if (shouldFilter(actor, name)) {
-            chatCache.put(messageId, true);
+        if (shouldFilter(snapshot)) {
+            synchronized (chatCache) {
+                chatCache.put(messageId, true);
+            }
             return null;
         }
 
         return currentText;
     }
 
-    private @Nullable Player findPlayer(String name) {
-        for (Player p : client.getTopLevelWorldView().players()) {
-            if (name.equalsIgnoreCase(p.getName()))
-                return p;
-        }
-
-        Player local = client.getLocalPlayer();
-        if (local != null && name.equalsIgnoreCase(local.getName()))
-            return local;
-
-        return null;
-    }
-
-    private boolean shouldFilter(@Nullable Player actor, String name) {
-        Player local = client.getLocalPlayer();
-        if (local == null)
+    private boolean shouldFilter(MessageSnapshot snapshot) {
+        if (!snapshot.isLocalPlayerPresent())
             return false;
 
-        int region = local.getWorldLocation().getRegionID();
-        if (actor != null) {
-            region = actor.getWorldLocation().getRegionID();
-        }
-
-        if (actor == local && !filterSelf)
+        if (snapshot.isFromLocalPlayer() && !filterSelf)
             return false;
 
-        if (!filterFriends && client.isFriended(name, false))
+        if (!filterFriends && snapshot.isFriend())
             return false;
 
-        if (!filterFriendChat && isFriendsChatMember(name))
+        if (!filterFriendChat && snapshot.isFriendsChatMember())
             return false;
 
-        if (!filterClanMates && isClanChatMember(name))
+        if (!filterClanMates && snapshot.isClanMember())
             return false;
 
-        return mutedRegions.contains(region);
-    }
-
-    private boolean isFriendsChatMember(String name) {
-        FriendsChatManager friendsChatManager = client.getFriendsChatManager();
-        return friendsChatManager != null && friendsChatManager.findByName(name) != null;
-    }
-
-    private boolean isClanChatMember(String name) {
-        ClanChannel clanChannel = client.getClanChannel();
-        if (clanChannel != null && clanChannel.findMember(name) != null)
-            return true;
-
-        clanChannel = client.getGuestClanChannel();
-        return clanChannel != null && clanChannel.findMember(name) != null;
+        return mutedRegions.contains(snapshot.getRegion());
     }
 
     private void checkPluginEnabled() {
@@ -1,16 +1,13 @@
 package com.modernchat.service.filter;
 
 import com.modernchat.ModernChatConfig;
+import com.modernchat.common.MessageSnapshot;
 import com.modernchat.service.ChatService;
 import com.modernchat.service.MessageFilter;
 import com.modernchat.util.ConfigUtil;
+import com.modernchat.util.JagexTagTokenizer;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
-import net.runelite.api.Client;
-import net.runelite.api.FriendsChatManager;
-import net.runelite.api.Player;
-import net.runelite.api.clan.ClanChannel;
-import net.runelite.api.events.ChatMessage;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.EventBus;
@@ -87,7 +84,6 @@ public class ChatFilterPluginFilter implements MessageFilter, ChatService {
         ChatMessageType.NPC_SAY
     );
 
-    @Inject private Client client;
     @Inject private ConfigManager configManager;
     @Inject private PluginManager pluginManager;
     @Inject private EventBus eventBus;
@@ -143,7 +139,9 @@ public class ChatFilterPluginFilter implements MessageFilter, ChatService {
         eventBus.unregister(this);
         filteredPatterns = Collections.emptyList();
         filteredNamePatterns = Collections.emptyList();
-        duplicateChatCache.clear();
+        synchronized (duplicateChatCache) {
+            duplicateChatCache.clear();
+        }
     }
 
     @Subscribe
@@ -169,48 +167,60 @@ public class ChatFilterPluginFilter implements MessageFilter, ChatService {
             case CONNECTION_LOST:
             case HOPPING:
             case LOGGING_IN:
-                duplicateChatCache.values().forEach(d -> d.messageId = -1);
+                synchronized (duplicateChatCache) {
+                    duplicateChatCache.values().forEach(d -> d.messageId = -1);
+                }
                 break;
         }
     }
 
-    private void trackDuplicate(ChatMessage chatMessage) {
+    private void trackDuplicate(MessageSnapshot snapshot) {
         if (!pluginEnabled)
             return;
 
-        if (COLLAPSIBLE_MESSAGETYPES.contains(chatMessage.getType())) {
-            int messageId = chatMessage.getMessageNode().getId();
-            String key = chatMessage.getMessageNode().getName() + ":" + chatMessage.getMessageNode().getValue();
-            Duplicate duplicate = duplicateChatCache.get(key);
-            if (duplicate != null && duplicate.messageId == messageId) {
-                return; // already tracked this message
-            }
-            duplicateChatCache.remove(key);
-            if (duplicate == null) {
-                duplicate = new Duplicate();
+        if (COLLAPSIBLE_MESSAGETYPES.contains(snapshot.getMessage().getType())) {
+            int messageId = snapshot.getMessageId();
+            String key = snapshot.getNodeName() + ":" + snapshot.getNodeValue();
+            synchronized (duplicateChatCache) {
+                Duplicate duplicate = duplicateChatCache.get(key);
+                if (duplicate != null && duplicate.messageId == messageId) {
+                    return; // already tracked this message
+                }
+                duplicateChatCache.remove(key);
+                if (duplicate == null) {
+                    duplicate = new Duplicate();
+                }
+                duplicate.count++;
+                duplicate.messageId = messageId;
+                duplicateChatCache.put(key, duplicate);
             }
-            duplicate.count++;
-            duplicate.messageId = messageId;
-            duplicateChatCache.put(key, duplicate);
         }
     }
 
     @Override
-    public @Nullable String apply(ChatMessage message, String currentText) {
-        trackDuplicate(message);
+    public int requiredFacts() {
+        // Membership only matters when some group is exempt from filtering
+        return pluginEnabled && !(filterFriends && filterFriendsChat && filterClanChat)
+            ? MessageSnapshot.FACT_SOCIAL
+            : 0;
+    }
+
+    @Override
+    public @Nullable String apply(MessageSnapshot snapshot, String currentText) {
+        trackDuplicate(snapshot);
 
         if (!pluginEnabled)
             return currentText;
 
-        ChatMessageType type = message.getType();
-        String name = message.getMessageNode().getName();
-        int messageId = message.getMessageNode().getId();
+        ChatMessageType type = snapshot.getMessage().getType();
+        String name = snapshot.getNodeName();
+        int messageId = snapshot.getMessageId();
         String result = currentText;
         boolean blockMessage = false;
 
         // Player message filtering
         if (PLAYER_TYPES.contains(type)) {
-            if (canFilterPlayer(Text.sanitize(name))) {
+            if (canFilterPlayer(snapshot)) {
                 result = censorMessage(name, result);
                 blockMessage = result == null;
             }
@@ -229,7 +239,10 @@ public class ChatFilterPluginFilter implements MessageFilter, ChatService {
             : COLLAPSIBLE_MESSAGETYPES.contains(type) && collapseGameChat;
 
         if (!blockMessage && shouldCollapse) {
-            Duplicate duplicateCacheEntry = duplicateChatCache.get(name + ":" + result);
+            Duplicate duplicateCacheEntry;
+            synchronized (duplicateChatCache) {
+                duplicateCacheEntry = duplicateChatCache.get(name + ":" + result);
+            }
             if (duplicateCacheEntry != null && duplicateCacheEntry.messageId != -1) {
                 blockMessage = duplicateCacheEntry.messageId != messageId ||
                     ((type == ChatMessageType.PUBLICCHAT || type == ChatMessageType.MODCHAT) &&
@@ -273,37 +286,19 @@ public class ChatFilterPluginFilter implements MessageFilter, ChatService {
             filteredPatterns.size(), filteredNamePatterns.size());
     }
 
-    private boolean canFilterPlayer(String playerName) {
-        Player localPlayer = client.getLocalPlayer();
-        if (localPlayer == null)
+    private boolean canFilterPlayer(MessageSnapshot snapshot) {
+        if (!snapshot.isLocalPlayerPresent())
             return false;
 
-        boolean isMessageFromSelf = playerName.equals(localPlayer.getName());
-        return !isMessageFromSelf &&
-            (filterFriends || !client.isFriended(playerName, false)) &&
-            (filterFriendsChat || !isFriendsChatMember(playerName)) &&
-            (filterClanChat || !isClanChatMember(playerName));
-    }
-
-    private boolean isFriendsChatMember(String name) {
-        FriendsChatManager friendsChatManager = client.getFriendsChatManager();
-        return friendsChatManager != null && friendsChatManager.findByName(name) != null;
-    }
-
-    private boolean isClanChatMember(String name) {
-        ClanChannel clanChannel = client.getClanChannel();
-        if (clanChannel != null && clanChannel.findMember(name) != null)
-            return true;
-
-        clanChannel = client.getGuestClanChannel();
-        return clanChannel != null && clanChannel.findMember(name) != null;
+        return !snapshot.isFromLocalPlayer() &&
+            (filterFriends || !snapshot.isFriend()) &&
+            (filterFriendsChat || !snapshot.isFriendsChatMember()) &&
+            (filterClanChat || !snapshot.isClanMember());
     }
 
     private @Nullable String censorMessage(@Nullable String username, String message) {
-        String strippedMessage = Text.JAGEX_PRINTABLE_CHAR_MATCHER.retainFrom(message)
-            .replace('\u00A0', ' ')
-            .replace("<lt>", "<")
-            .replace("<gt>", ">");
+        String strippedMessage = JagexTagTokenizer.unescape(Text.JAGEX_PRINTABLE_CHAR_MATCHER.retainFrom(message)
+            .replace('\u00A0', ' '));
         String strippedAccents = stripAccentsIfEnabled(strippedMessage);
 
         if (username != null && isNameFiltered(username)) {
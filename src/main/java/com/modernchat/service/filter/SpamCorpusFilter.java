@@ -1,6 +1,7 @@
 package com.modernchat.service.filter;
 
 import com.modernchat.ModernChatConfig;
+import com.modernchat.common.MessageSnapshot;
 import com.modernchat.service.MessageFilter;
 import com.modernchat.service.SpamFilterService;
 import lombok.extern.slf4j.Slf4j;
@@ -31,8 +32,8 @@ public class SpamCorpusFilter implements MessageFilter {
     }
 
     @Override
-    public @Nullable String apply(ChatMessage message, String currentText) {
-        String rawText = message.getMessage();
+    public @Nullable String apply(MessageSnapshot snapshot, String currentText) {
+        String rawText = snapshot.getMessage().getMessage();
         if (rawText == null || rawText.isEmpty())
             return currentText;
 
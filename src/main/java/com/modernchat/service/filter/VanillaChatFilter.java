@@ -1,11 +1,10 @@
 package com.modernchat.service.filter;
 
 import com.modernchat.ModernChatConfig;
+import com.modernchat.common.MessageSnapshot;
 import com.modernchat.service.MessageFilter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
-import net.runelite.api.Client;
-import net.runelite.api.events.ChatMessage;
 import net.runelite.api.gameval.VarbitID;
 
 import javax.annotation.Nullable;
@@ -39,7 +38,6 @@ public class VanillaChatFilter implements MessageFilter {
         ChatMessageType.NPC_SAY
     );
 
-    @Inject private Client client;
     @Inject private ModernChatConfig config;
 
     @Override
@@ -48,10 +46,10 @@ public class VanillaChatFilter implements MessageFilter {
     }
 
     @Override
-    public @Nullable String apply(ChatMessage message, String currentText) {
-        ChatMessageType type = message.getType();
+    public @Nullable String apply(MessageSnapshot snapshot, String currentText) {
+        ChatMessageType type = snapshot.getMessage().getType();
 
-        int gameMode = client.getVarbitValue(VarbitID.GAME_FILTER);
+        int gameMode = snapshot.getGameFilter();
         if (gameMode == 2 && GAME_TYPES.contains(type)) {
             return null;
         }
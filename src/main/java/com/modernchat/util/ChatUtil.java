@@ -3,6 +3,7 @@ package com.modernchat.util;
 import com.modernchat.common.ChatMessageBuilder;
 import com.modernchat.common.ChatMode;
 import com.modernchat.common.MessageLine;
+import com.modernchat.common.MessageSnapshot;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.MenuAction;
@@ -35,8 +36,6 @@ public class ChatUtil
     public static final String MODERN_CHAT_TAG = "[ModernChat]";
     public static final String COMMAND_MODE_MESSAGE = "Command Mode (Modern chat will be restored once you send or cancel the command)";
 
-    private static final Pattern IMG_TAG_PATTERN = Pattern.compile("<img=(\\d+)>");
-
     @Value
     public static class SenderReceiver {
         String senderName;
@@ -45,9 +44,7 @@ public class ChatUtil
     }
 
     public static int extractIconId(@Nullable String name) {
-        if (name == null || name.isEmpty()) return -1;
-        Matcher m = IMG_TAG_PATTERN.matcher(name);
-        return m.find() ? Integer.parseInt(m.group(1)) : -1;
+        return JagexTagTokenizer.firstImageId(name);
     }
 
     public static boolean isPrivateMessage(ChatMessageType t) {
@@ -153,6 +150,15 @@ public class ChatUtil
             || type == ChatMessageType.CLAN_GIM_GROUP_WITH;
     }
 
+    /**
+     * Private, friends chat and clan traffic, which is never shed or suppressed.
+     */
+    public static boolean isImportantMessageType(ChatMessageType type) {
+        return isPrivateMessage(type)
+            || isFriendsChatMessage(type)
+            || isClanMessage(type);
+    }
+
     public static boolean isFriendsChatMessage(ChatMessageType type) {
         return type == ChatMessageType.FRIENDSCHAT
             || type == ChatMessageType.FRIENDSCHATNOTIFICATION;
@@ -258,12 +264,35 @@ public class ChatUtil
      */
     public static @Nullable MessageLine createMessageLine(ChatMessage e, Client client, boolean requireLocalPlayer, @Nullable String filteredMessage) {
         Player localPlayer = client.getLocalPlayer();
-        if (localPlayer == null && requireLocalPlayer)
+        return createMessageLine(e, localPlayer != null, localPlayer != null ? localPlayer.getName() : null,
+            requireLocalPlayer, filteredMessage);
+    }
+
+    /**
+     * Create a MessageLine from a snapshot captured on the client thread. Safe to call from any thread.
+     *
+     * @param snapshot the chat message and client state snapshot
+     * @param requireLocalPlayer whether to require local player info
+     * @param filteredMessage optional filtered message text (from chat filter plugins), or null to use original
+     */
+    public static @Nullable MessageLine createMessageLine(MessageSnapshot snapshot, boolean requireLocalPlayer, @Nullable String filteredMessage) {
+        return createMessageLine(snapshot.getMessage(), snapshot.isLocalPlayerPresent(), snapshot.getLocalPlayerName(),
+            requireLocalPlayer, filteredMessage);
+    }
+
+    private static @Nullable MessageLine createMessageLine(
+        ChatMessage e,
+        boolean hasLocalPlayer,
+        @Nullable String localName,
+        boolean requireLocalPlayer,
+        @Nullable String filteredMessage
+    ) {
+        if (!hasLocalPlayer && requireLocalPlayer)
             return null;
 
         String localPlayerName = "";
-        if (localPlayer != null) {
-            localPlayerName = localPlayer.getName();
+        if (hasLocalPlayer) {
+            localPlayerName = localName;
             if (StringUtil.isNullOrEmpty(localPlayerName) && requireLocalPlayer)
                 return null;
         }
@@ -316,7 +345,13 @@ public class ChatUtil
             && COLLAPSE_PATTERN.matcher(filteredMessage).find()
             && !originalMsg.equals(filteredMessage); // only if filtered differs from original
 
-        return new MessageLine(builder.build(), type, timestamp, senderName, receiverName, prefix, duplicateKey, collapsed, senderIconId);
+        // Names and prefixes are shared by many lines in scrollback, the duplicate key is per message
+        return new MessageLine(builder.build(), type, timestamp,
+            InternPool.STRINGS.intern(senderName),
+            InternPool.STRINGS.intern(receiverName),
+            InternPool.STRINGS.intern(prefix),
+            duplicateKey,
+            collapsed, senderIconId);
     }
 
     public static String getPrefix(ChatMessageType type) {
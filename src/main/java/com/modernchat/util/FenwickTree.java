@@ -0,0 +1,94 @@
+package com.modernchat.util;
+
+import java.util.Arrays;
+
+/**
+ * Binary indexed tree over int values with O(log n) point updates and prefix sums.
+ * Not thread-safe.
+ */
+public final class FenwickTree
+{
+    private final int[] values;
+    private final long[] tree;
+    private long total = 0;
+
+    public FenwickTree(int size) {
+        values = new int[Math.max(1, size)];
+        tree = new long[values.length + 1];
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public void set(int index, int value) {
+        int delta = value - values[index];
+        if (delta == 0)
+            return;
+        values[index] = value;
+        total += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /** Sum of the values in [0, end). */
+    public long sumBefore(int end) {
+        long sum = 0;
+        for (int i = Math.min(end, values.length); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /** Sum of the values in [start, end). */
+    public long sum(int start, int end) {
+        return start >= end ? 0 : sumBefore(end) - sumBefore(start);
+    }
+
+    /**
+     * Sum of {@code count} values from {@code start}, wrapping past the end, for trees indexed by
+     * ring buffer slot.
+     */
+    public long sumWrapped(int start, int count) {
+        if (count <= 0)
+            return 0;
+        final int end = start + count;
+        return end <= values.length
+            ? sum(start, end)
+            : sum(start, values.length) + sumBefore(end - values.length);
+    }
+
+    /**
+     * Offset from {@code start} of the first of {@code count} wrapped values whose running sum
+     * exceeds {@code target}, or -1 if their total does not. With per-line row counts this is
+     * the line holding a row.
+     */
+    public int searchWrapped(int start, int count, long target) {
+        int lo = 0, hi = count - 1, ans = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sumWrapped(start, mid + 1) > target) {
+                ans = mid;
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return ans;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        Arrays.fill(tree, 0);
+        total = 0;
+    }
+}
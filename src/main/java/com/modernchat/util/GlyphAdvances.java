@@ -0,0 +1,183 @@
+package com.modernchat.util;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextAttribute;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Per-character advance widths for one font and render context, so text can be measured and
+ * fitted by a linear scan without creating substrings. Pages of 256 characters are filled on
+ * first use. Widths match {@link FontMetrics#stringWidth} only when advances are integral and
+ * independent of neighbouring characters, so fonts with kerning, ligatures or fractional
+ * metrics, and characters that need complex layout, are measured with the metrics instead.
+ * Tables are shared but filled without locking; use them from the render thread only.
+ */
+public final class GlyphAdvances
+{
+    private static final int MAX_TABLES = 16;
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    // Marks characters that fall back to the metrics
+    private static final int COMPLEX = -1;
+
+    private static final class Key
+    {
+        final Font font;
+        final FontRenderContext frc;
+
+        Key(Font font, FontRenderContext frc) {
+            this.font = font;
+            this.frc = frc;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return font.equals(k.font) && frc.equals(k.frc);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(font, frc);
+        }
+    }
+
+    private static final Map<Key, GlyphAdvances> TABLES = new LinkedHashMap<Key, GlyphAdvances>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, GlyphAdvances> eldest) {
+            return size() > MAX_TABLES;
+        }
+    };
+
+    private final FontMetrics fm;
+    private final boolean exact;
+    private final int[][] pages = new int[1 << (16 - PAGE_BITS)][];
+
+    private GlyphAdvances(FontMetrics fm) {
+        this.fm = fm;
+        this.exact = isTableExact(fm);
+    }
+
+    /**
+     * Returns the shared table for the metrics' font and render context.
+     */
+    public static GlyphAdvances of(FontMetrics fm) {
+        Key key = new Key(fm.getFont(), fm.getFontRenderContext());
+        synchronized (TABLES) {
+            return TABLES.computeIfAbsent(key, k -> new GlyphAdvances(fm));
+        }
+    }
+
+    public FontMetrics getMetrics() {
+        return fm;
+    }
+
+    /**
+     * Width of {@code s[from, to)} in pixels, equal to {@code fm.stringWidth(s.substring(from, to))}.
+     */
+    public int width(String s, int from, int to) {
+        if (!exact)
+            return fm.stringWidth(s.substring(from, to));
+
+        int w = 0;
+        for (int i = from; i < to; i++) {
+            int cw = advance(s.charAt(i));
+            if (cw == COMPLEX)
+                return fm.stringWidth(s.substring(from, to));
+            w += cw;
+        }
+        return w;
+    }
+
+    public int width(String s) {
+        return width(s, 0, s.length());
+    }
+
+    /**
+     * Number of characters from {@code from} that fit in {@code maxWidth}, at most {@code to - from}.
+     */
+    public int fit(String s, int from, int to, int maxWidth) {
+        if (maxWidth <= 0)
+            return 0;
+        if (!exact)
+            return fitWithMetrics(s, from, to, maxWidth);
+
+        int w = 0;
+        for (int i = from; i < to; i++) {
+            int cw = advance(s.charAt(i));
+            if (cw == COMPLEX)
+                return fitWithMetrics(s, from, to, maxWidth);
+            w += cw;
+            if (w > maxWidth)
+                return i - from;
+        }
+        return to - from;
+    }
+
+    private int advance(char c) {
+        int[] page = pages[c >>> PAGE_BITS];
+        if (page == null) {
+            page = fillPage(c >>> PAGE_BITS);
+            pages[c >>> PAGE_BITS] = page;
+        }
+        return page[c & (PAGE_SIZE - 1)];
+    }
+
+    private int[] fillPage(int index) {
+        int[] page = new int[PAGE_SIZE];
+        int base = index << PAGE_BITS;
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            char c = (char) (base + i);
+            page[i] = needsLayout(c) ? COMPLEX : fm.charWidth(c);
+        }
+        return page;
+    }
+
+    /**
+     * Binary search over substring widths, for text the table cannot measure.
+     */
+    private int fitWithMetrics(String s, int from, int to, int maxWidth) {
+        int lo = from, hi = to, ans = from;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (fm.stringWidth(s.substring(from, mid)) <= maxWidth) {
+                ans = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return ans - from;
+    }
+
+    private static boolean isTableExact(FontMetrics fm) {
+        if (fm.getFontRenderContext().usesFractionalMetrics())
+            return false;
+        Map<TextAttribute, ?> attributes = fm.getFont().getAttributes();
+        return !TextAttribute.KERNING_ON.equals(attributes.get(TextAttribute.KERNING))
+            && !TextAttribute.LIGATURES_ON.equals(attributes.get(TextAttribute.LIGATURES))
+            && !fm.getFont().isTransformed();
+    }
+
+    /**
+     * Combining marks, scripts shaped by the layout engine, joiners and surrogate halves.
+     */
+    private static boolean needsLayout(char c) {
+        return (c >= 0x0300 && c <= 0x036F)
+            || (c >= 0x0590 && c <= 0x1DFF)
+            || (c >= 0x200B && c <= 0x206F)
+            || (c >= 0x20D0 && c <= 0x20FF)
+            || (c >= 0xFB1D && c <= 0xFDFF)
+            || (c >= 0xFE00 && c <= 0xFE0F)
+            || (c >= 0xFE20 && c <= 0xFEFF)
+            || Character.isSurrogate(c);
+    }
+}
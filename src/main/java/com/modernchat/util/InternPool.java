@@ -0,0 +1,65 @@
+package com.modernchat.util;
+
+import javax.annotation.Nullable;
+import java.awt.Color;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Bounded pool of canonical instances for heavily repeated values such as sender names and
+ * palette colours. Entries are weakly held, so values no longer referenced by any line are
+ * evicted by the GC; once the pool is full new values are returned as-is until room frees up.
+ */
+public final class InternPool<T>
+{
+    public static final InternPool<String> STRINGS = new InternPool<>(16384);
+    public static final InternPool<Color> COLORS = new InternPool<>(1024);
+
+    /** Direct-mapped cache in front of {@link #COLORS}, keyed by the ARGB value. */
+    private static final Color[] COLOR_SLOTS = new Color[256];
+
+    /**
+     * Returns the canonical colour for an ARGB value without allocating a {@link Color} when the
+     * value was seen recently. Slots are replaced on collision, which only costs a pool lookup.
+     */
+    public static Color color(int argb) {
+        int slot = (argb ^ (argb >>> 8) ^ (argb >>> 16)) & (COLOR_SLOTS.length - 1);
+        Color c = COLOR_SLOTS[slot];
+        if (c != null && c.getRGB() == argb)
+            return c;
+
+        c = COLORS.intern(new Color(argb, true));
+        COLOR_SLOTS[slot] = c;
+        return c;
+    }
+
+    private final Map<T, WeakReference<T>> pool = new WeakHashMap<>();
+    private final int maxSize;
+
+    public InternPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public synchronized @Nullable T intern(@Nullable T value) {
+        if (value == null)
+            return null;
+
+        WeakReference<T> ref = pool.get(value);
+        T canonical = ref != null ? ref.get() : null;
+        if (canonical != null)
+            return canonical;
+
+        if (pool.size() < maxSize)
+            pool.put(value, new WeakReference<>(value));
+        return value;
+    }
+
+    public synchronized int size() {
+        return pool.size();
+    }
+
+    public synchronized void clear() {
+        pool.clear();
+    }
+}
@@ -0,0 +1,227 @@
+package com.modernchat.util;
+
+import lombok.Getter;
+
+/**
+ * Streaming tokenizer for Jagex rich text ({@code <col=ff0000>}, {@code </col>}, {@code <img=1>},
+ * {@code <br>}, {@code <lt>}, {@code <gt>}). Tag names are matched case-insensitively in place and
+ * tokens are reported as offsets into the source, so nothing is allocated per tag.
+ * <p>
+ * Instances are reusable through {@link #reset(CharSequence)} but not thread-safe.
+ */
+public final class JagexTagTokenizer
+{
+    public static final int END = 0;
+    /** Plain text between {@link #getStart()} and {@link #getEnd()}. */
+    public static final int TEXT = 1;
+    /** Colour push; {@link #hasColor()} tells whether {@link #getColor()} holds a parsed ARGB value. */
+    public static final int COL = 2;
+    public static final int END_COL = 3;
+    public static final int BR = 4;
+    /** Image tag with a numeric id in {@link #getImageId()}. */
+    public static final int IMG = 5;
+    public static final int LT = 6;
+    public static final int GT = 7;
+    /** Any other tag, the full {@code <...>} range is between {@link #getStart()} and {@link #getEnd()}. */
+    public static final int UNKNOWN = 8;
+
+    private CharSequence src = "";
+    private int pos = 0;
+    private int length = 0;
+
+    @Getter private int start = 0;
+    @Getter private int end = 0;
+    @Getter private int color = 0;
+    private boolean hasColor = false;
+    @Getter private int imageId = -1;
+
+    public JagexTagTokenizer reset(CharSequence s) {
+        src = s == null ? "" : s;
+        pos = 0;
+        length = src.length();
+        start = end = 0;
+        return this;
+    }
+
+    public boolean hasColor() {
+        return hasColor;
+    }
+
+    /**
+     * Advances to the next token. An unterminated tag ends the stream, matching how the
+     * client treats a stray {@code <}.
+     */
+    public int next() {
+        if (pos >= length)
+            return END;
+
+        start = pos;
+        if (src.charAt(pos) != '<') {
+            int i = pos + 1;
+            while (i < length && src.charAt(i) != '<') i++;
+            end = pos = i;
+            return TEXT;
+        }
+
+        int close = -1;
+        for (int i = pos + 1; i < length; i++) {
+            if (src.charAt(i) == '>') {
+                close = i;
+                break;
+            }
+        }
+        if (close < 0) {
+            pos = length;
+            return END;
+        }
+
+        end = pos = close + 1;
+        final int nameStart = start + 1;
+
+        if (equalsIgnoreCase(nameStart, close, "lt"))
+            return LT;
+        if (equalsIgnoreCase(nameStart, close, "gt"))
+            return GT;
+        if (equalsIgnoreCase(nameStart, close, "/col"))
+            return END_COL;
+        if (equalsIgnoreCase(nameStart, close, "br"))
+            return BR;
+
+        if (startsWithIgnoreCase(nameStart, close, "col")) {
+            int valueStart = argumentStart(nameStart + 3, close);
+            hasColor = parseHex(valueStart, close);
+            return COL;
+        }
+
+        if (startsWithIgnoreCase(nameStart, close, "img")) {
+            int valueStart = argumentStart(nameStart + 3, close);
+            imageId = parseInt(valueStart, close);
+            if (imageId >= 0)
+                return IMG;
+        }
+
+        return UNKNOWN;
+    }
+
+    /**
+     * Returns the id of the first {@code <img=N>} tag anywhere in the text or -1 when there is none.
+     * This scans for the tag itself rather than tokenizing, so a stray {@code <} before it does not
+     * hide it.
+     */
+    public static int firstImageId(CharSequence s) {
+        if (s == null)
+            return -1;
+
+        final int length = s.length();
+        for (int i = indexOfImg(s, 0); i >= 0; i = indexOfImg(s, i + 1)) {
+            long id = 0;
+            int j = i + 5;
+            while (j < length && id <= Integer.MAX_VALUE) {
+                char ch = s.charAt(j);
+                if (ch < '0' || ch > '9')
+                    break;
+                id = id * 10 + (ch - '0');
+                j++;
+            }
+            if (j > i + 5 && j < length && s.charAt(j) == '>' && id <= Integer.MAX_VALUE)
+                return (int) id;
+        }
+        return -1;
+    }
+
+    private static int indexOfImg(CharSequence s, int from) {
+        for (int i = from, last = s.length() - 5; i <= last; i++) {
+            if (s.charAt(i) == '<' && s.charAt(i + 1) == 'i' && s.charAt(i + 2) == 'm'
+                && s.charAt(i + 3) == 'g' && s.charAt(i + 4) == '=')
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces {@code <lt>} and {@code <gt>} with the characters they stand for and keeps every
+     * other tag as-is. Returns the input when it contains no tags.
+     */
+    public static String unescape(String s) {
+        if (s == null || s.indexOf('<') < 0)
+            return s;
+
+        StringBuilder sb = new StringBuilder(s.length());
+        JagexTagTokenizer t = new JagexTagTokenizer().reset(s);
+        int tok;
+        while ((tok = t.next()) != END) {
+            if (tok == LT)
+                sb.append('<');
+            else if (tok == GT)
+                sb.append('>');
+            else
+                sb.append(s, t.start, t.end);
+        }
+        // An unterminated tag ends tokenizing, keep its text
+        if (t.pos > t.end)
+            sb.append(s, t.end, s.length());
+        return sb.toString();
+    }
+
+    private int argumentStart(int from, int to) {
+        return from < to && src.charAt(from) == '=' ? from + 1 : from;
+    }
+
+    private boolean equalsIgnoreCase(int from, int to, String name) {
+        return to - from == name.length() && startsWithIgnoreCase(from, to, name);
+    }
+
+    private boolean startsWithIgnoreCase(int from, int to, String name) {
+        int n = name.length();
+        if (to - from < n)
+            return false;
+        for (int k = 0; k < n; k++) {
+            // Tag names are ASCII, fold to lower case with a single bit
+            char c = src.charAt(from + k);
+            if (c >= 'A' && c <= 'Z') c |= 0x20;
+            if (c != name.charAt(k))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses {@code rgb}, {@code rrggbb} or {@code aarrggbb} (optionally prefixed with {@code #})
+     * into {@link #color}; six digits or fewer are made opaque.
+     */
+    private boolean parseHex(int from, int to) {
+        while (from < to && Character.isWhitespace(src.charAt(from))) from++;
+        while (to > from && Character.isWhitespace(src.charAt(to - 1))) to--;
+        if (from < to && src.charAt(from) == '#') from++;
+
+        int digits = to - from;
+        if (digits <= 0 || digits > 8)
+            return false;
+
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            int d = Character.digit(src.charAt(i), 16);
+            if (d < 0)
+                return false;
+            v = (v << 4) | d;
+            if (digits == 3)
+                v = (v << 4) | d; // expand shorthand rgb to rrggbb
+        }
+
+        color = digits <= 6 ? (v & 0xFFFFFF) | 0xFF000000 : v;
+        return true;
+    }
+
+    private int parseInt(int from, int to) {
+        if (from >= to || to - from > 9)
+            return -1;
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            char c = src.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+}
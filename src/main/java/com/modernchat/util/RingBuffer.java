@@ -0,0 +1,139 @@
+package com.modernchat.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Fixed-capacity ring buffer with O(1) append, evict and indexed access. Every element gets a
+ * sequence number that stays stable while it is in the buffer, index 0 is always the oldest.
+ * Not thread-safe.
+ */
+public final class RingBuffer<T>
+{
+    private Object[] items;
+    private int head = 0;
+    private int size = 0;
+    private long firstSeq = 0;
+
+    public RingBuffer(int capacity) {
+        items = new Object[Math.max(1, capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == items.length;
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+
+    /** Sequence number of the oldest element. */
+    public long firstSeq() {
+        return firstSeq;
+    }
+
+    /** Sequence number the next appended element will get. */
+    public long nextSeq() {
+        return firstSeq + size;
+    }
+
+    /**
+     * Appends an element and returns its sequence number.
+     *
+     * @throws IllegalStateException if the buffer is full, evict with {@link #removeFirst()} first
+     */
+    public long append(T item) {
+        if (isFull())
+            throw new IllegalStateException("Ring buffer is full");
+        items[(head + size) % items.length] = item;
+        size++;
+        return firstSeq + size - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        return (T) items[(head + index) % items.length];
+    }
+
+    public T first() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return get(0);
+    }
+
+    public T last() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return get(size - 1);
+    }
+
+    /**
+     * Returns the index of the element with this sequence number, or -1 if it was evicted.
+     */
+    public int indexOfSeq(long seq) {
+        long index = seq - firstSeq;
+        return index >= 0 && index < size ? (int) index : -1;
+    }
+
+    /**
+     * Physical slot of the element at this index, for parallel per-slot arrays. Slots are
+     * stable for an element's lifetime but are reassigned by {@link #setCapacity(int)}.
+     */
+    public int slotOf(int index) {
+        return (head + index) % items.length;
+    }
+
+    public long seqAt(int index) {
+        return firstSeq + index;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T removeFirst() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        T item = (T) items[head];
+        items[head] = null;
+        head = (head + 1) % items.length;
+        size--;
+        firstSeq++;
+        return item;
+    }
+
+    /**
+     * Changes the capacity, keeping the newest elements and their sequence numbers.
+     */
+    public void setCapacity(int capacity) {
+        capacity = Math.max(1, capacity);
+        if (capacity == items.length)
+            return;
+
+        while (size > capacity) removeFirst();
+
+        Object[] resized = new Object[capacity];
+        for (int i = 0; i < size; i++) {
+            resized[i] = items[(head + i) % items.length];
+        }
+        items = resized;
+        head = 0;
+    }
+
+    /**
+     * Removes every element. Sequence numbers keep increasing so old ones are never reused.
+     */
+    public void clear() {
+        Arrays.fill(items, null);
+        firstSeq += size;
+        head = 0;
+        size = 0;
+    }
+}
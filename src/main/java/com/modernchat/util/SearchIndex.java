@@ -0,0 +1,217 @@
+package com.modernchat.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Incremental inverted index from lower-cased word tokens to the sequence numbers of the
+ * documents containing them. Documents must be added in increasing sequence order, which keeps
+ * every postings list sorted with O(1) append. Removing the oldest document is O(1) as well;
+ * removing any other shifts the postings lists it appears in.
+ * Not thread-safe.
+ */
+public final class SearchIndex
+{
+    /** Shorter last query terms are matched exactly instead of as a prefix. */
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final class Postings
+    {
+        long[] seqs = new long[2];
+        int head = 0;
+        int tail = 0;
+
+        int size() {
+            return tail - head;
+        }
+
+        void add(long seq) {
+            if (tail > head && seqs[tail - 1] == seq)
+                return; // repeated token in the same document
+            if (tail == seqs.length) {
+                if (head > seqs.length / 2) {
+                    System.arraycopy(seqs, head, seqs, 0, tail - head);
+                    tail -= head;
+                    head = 0;
+                } else {
+                    seqs = Arrays.copyOf(seqs, seqs.length * 2);
+                }
+            }
+            seqs[tail++] = seq;
+        }
+
+        void remove(long seq) {
+            if (tail > head && seqs[head] == seq) {
+                head++;
+                return;
+            }
+            int i = Arrays.binarySearch(seqs, head, tail, seq);
+            if (i < 0)
+                return;
+            System.arraycopy(seqs, i + 1, seqs, i, tail - i - 1);
+            tail--;
+        }
+
+        boolean contains(long seq) {
+            return Arrays.binarySearch(seqs, head, tail, seq) >= 0;
+        }
+    }
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final StringBuilder token = new StringBuilder(32);
+    private long postingCount = 0;
+
+    /**
+     * Indexes every token of the text under the sequence number.
+     */
+    public void add(long seq, CharSequence text) {
+        tokenize(text, t -> {
+            Postings p = terms.computeIfAbsent(t, k -> new Postings());
+            int before = p.size();
+            p.add(seq);
+            postingCount += p.size() - before;
+        });
+    }
+
+    /**
+     * Removes a document added with the same text.
+     */
+    public void remove(long seq, CharSequence text) {
+        tokenize(text, t -> {
+            Postings p = terms.get(t);
+            if (p == null)
+                return;
+            int before = p.size();
+            p.remove(seq);
+            postingCount -= before - p.size();
+            if (p.size() == 0)
+                terms.remove(t);
+        });
+    }
+
+    public void clear() {
+        terms.clear();
+        postingCount = 0;
+    }
+
+    public int getTermCount() {
+        return terms.size();
+    }
+
+    /**
+     * Rough heap footprint of the terms and postings in bytes.
+     */
+    public long estimateBytes() {
+        long bytes = 0;
+        for (Map.Entry<String, Postings> e : terms.entrySet()) {
+            // Tree entry, string with its array, postings object and its array
+            bytes += 40 + 24 + 16 + e.getKey().length() + 32 + 16 + 8L * e.getValue().seqs.length;
+        }
+        return bytes;
+    }
+
+    public long getPostingCount() {
+        return postingCount;
+    }
+
+    /**
+     * Returns the ascending sequence numbers of documents containing every query term. The last
+     * term also matches as a prefix so results update while the query is typed.
+     */
+    public long[] search(String query) {
+        List<String> queryTerms = new ArrayList<>();
+        tokenize(query, queryTerms::add);
+        if (queryTerms.isEmpty())
+            return new long[0];
+
+        List<Postings> lists = new ArrayList<>(queryTerms.size());
+        for (int i = 0; i < queryTerms.size() - 1; i++) {
+            Postings p = terms.get(queryTerms.get(i));
+            if (p == null)
+                return new long[0];
+            lists.add(p);
+        }
+        lists.add(toPostings(lastTermMatches(queryTerms.get(queryTerms.size() - 1))));
+
+        // The rarest term drives the intersection, the others are binary searched
+        Postings driver = lists.get(0);
+        for (Postings p : lists) {
+            if (p.size() < driver.size())
+                driver = p;
+        }
+        lists.remove(driver);
+        long[] candidates = Arrays.copyOfRange(driver.seqs, driver.head, driver.tail);
+
+        int n = 0;
+        outer:
+        for (long seq : candidates) {
+            for (Postings p : lists) {
+                if (!p.contains(seq))
+                    continue outer;
+            }
+            candidates[n++] = seq;
+        }
+        return n == candidates.length ? candidates : Arrays.copyOf(candidates, n);
+    }
+
+    private long[] lastTermMatches(String term) {
+        if (term.length() < MIN_PREFIX_LENGTH) {
+            Postings p = terms.get(term);
+            return p == null ? new long[0] : Arrays.copyOfRange(p.seqs, p.head, p.tail);
+        }
+
+        NavigableMap<String, Postings> range = terms.subMap(term, true, term + Character.MAX_VALUE, false);
+        if (range.size() == 1) {
+            Postings p = range.firstEntry().getValue();
+            return Arrays.copyOfRange(p.seqs, p.head, p.tail);
+        }
+
+        int total = 0;
+        for (Postings p : range.values()) total += p.size();
+        long[] out = new long[total];
+        int n = 0;
+        for (Postings p : range.values()) {
+            System.arraycopy(p.seqs, p.head, out, n, p.size());
+            n += p.size();
+        }
+        Arrays.sort(out);
+
+        // Drop documents matched by several prefixed terms
+        int unique = 0;
+        for (int i = 0; i < out.length; i++) {
+            if (unique == 0 || out[unique - 1] != out[i])
+                out[unique++] = out[i];
+        }
+        return unique == out.length ? out : Arrays.copyOf(out, unique);
+    }
+
+    private static Postings toPostings(long[] seqs) {
+        Postings p = new Postings();
+        p.seqs = seqs;
+        p.tail = seqs.length;
+        return p;
+    }
+
+    /**
+     * Splits on anything that is not a letter or digit and lower-cases the tokens.
+     */
+    private void tokenize(CharSequence text, Consumer<String> sink) {
+        if (text == null)
+            return;
+        token.setLength(0);
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                sink.accept(token.toString());
+                token.setLength(0);
+            }
+        }
+    }
+}
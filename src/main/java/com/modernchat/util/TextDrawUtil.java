@@ -2,13 +2,59 @@ package com.modernchat.util;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.Stroke;
-import java.awt.font.GlyphVector;
+import java.awt.font.FontRenderContext;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
 
 public final class TextDrawUtil
 {
+    // Outline shapes are roughly proportional to the glyph count, so the cache is bounded by text length
+    private static final int MAX_OUTLINE_CHARS = 16 * 1024;
+    private static final int MAX_CACHED_STROKE = 16;
+
+    private static final class OutlineKey
+    {
+        final Font font;
+        final FontRenderContext frc;
+        final String text;
+        final int hash;
+
+        OutlineKey(Font font, FontRenderContext frc, String text)
+        {
+            this.font = font;
+            this.frc = frc;
+            this.text = text;
+            this.hash = Objects.hash(font, frc, text);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (!(o instanceof OutlineKey))
+                return false;
+            OutlineKey k = (OutlineKey) o;
+            return hash == k.hash && text.equals(k.text) && font.equals(k.font) && frc.equals(k.frc);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+
+    // Glyph outlines at the origin, translated when drawn; least recently drawn text is dropped first
+    private static final LinkedHashMap<OutlineKey, Shape> OUTLINES = new LinkedHashMap<>(256, 0.75f, true);
+    private static int outlineChars = 0;
+    private static final BasicStroke[] STROKES = new BasicStroke[MAX_CACHED_STROKE + 1];
+
     private TextDrawUtil() {}
 
     /**
@@ -35,20 +81,18 @@ public final class TextDrawUtil
     {
         if (outlineThickness > 0 && shadowColor.getAlpha() > 0)
         {
-            GlyphVector gv = g.getFont().createGlyphVector(g.getFontRenderContext(), text);
-            Shape textShape = gv.getOutline(x, y);
+            Shape textShape = getOutline(g.getFont(), g.getFontRenderContext(), text);
 
             Stroke oldStroke = g.getStroke();
-            // Stroke is centered on the path, so double the width; the inner half
-            // is covered when we fill the text on top.
-            g.setStroke(new BasicStroke(outlineThickness * 2f,
-                BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g.translate(x, y);
+            g.setStroke(getOutlineStroke(outlineThickness));
             g.setColor(shadowColor);
             g.draw(textShape);
             g.setStroke(oldStroke);
 
             g.setColor(textColor);
             g.fill(textShape);
+            g.translate(-x, -y);
         }
         else if (shadowOffset > 0 && shadowColor.getAlpha() > 0)
         {
@@ -63,4 +107,54 @@ public final class TextDrawUtil
             g.drawString(text, x, y);
         }
     }
+
+    /**
+     * Returns the outline of the text at the origin, cached per font, render context and text.
+     */
+    private static Shape getOutline(Font font, FontRenderContext frc, String text)
+    {
+        OutlineKey key = new OutlineKey(font, frc, text);
+        synchronized (OUTLINES)
+        {
+            Shape cached = OUTLINES.get(key);
+            if (cached != null)
+                return cached;
+        }
+
+        Shape outline = font.createGlyphVector(frc, text).getOutline();
+        if (text.length() > MAX_OUTLINE_CHARS / 4)
+            return outline;
+
+        synchronized (OUTLINES)
+        {
+            if (OUTLINES.put(key, outline) == null)
+                outlineChars += text.length();
+
+            Iterator<OutlineKey> it = OUTLINES.keySet().iterator();
+            while (it.hasNext() && outlineChars > MAX_OUTLINE_CHARS)
+            {
+                outlineChars -= it.next().text.length();
+                it.remove();
+            }
+        }
+        return outline;
+    }
+
+    /**
+     * Stroke is centered on the path, so the width is doubled; the inner half is covered when
+     * the text is filled on top. Common thicknesses share one instance.
+     */
+    private static BasicStroke getOutlineStroke(int thickness)
+    {
+        if (thickness > MAX_CACHED_STROKE)
+            return new BasicStroke(thickness * 2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+
+        BasicStroke stroke = STROKES[thickness];
+        if (stroke == null)
+        {
+            stroke = new BasicStroke(thickness * 2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+            STROKES[thickness] = stroke;
+        }
+        return stroke;
+    }
 }
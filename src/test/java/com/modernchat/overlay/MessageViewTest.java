@@ -0,0 +1,106 @@
+package com.modernchat.overlay;
+
+import com.modernchat.draw.ParsedLine;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MessageViewTest
+{
+    @Test
+    public void keepsNewestLinesUpToTheCap() {
+        MessageView view = new MessageView(3);
+        for (int i = 0; i < 5; i++) {
+            view.append((ParsedLine) null);
+        }
+
+        assertEquals(3, view.getLineCount());
+        assertEquals(2, view.get(0).getId());
+    }
+
+    @Test
+    public void tombstonesDoNotTakeTheCapOfLiveLines() {
+        MessageView view = new MessageView(4);
+        List<StoredLine> live = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            live.add(view.append((ParsedLine) null));
+        }
+
+        // A long run of collapsed repeats leaves a tombstone per repeat
+        StoredLine last = view.append((ParsedLine) null);
+        for (int i = 0; i < view.capacity() * 3; i++) {
+            view.remove(last);
+            last = view.append((ParsedLine) null);
+        }
+
+        assertEquals(4, view.getLineCount());
+        assertTrue(view.size() <= view.capacity());
+        List<StoredLine> kept = new ArrayList<>();
+        view.forEach(kept::add);
+        assertEquals(live.subList(1, 4), kept.subList(0, 3));
+        assertEquals(last, kept.get(3));
+    }
+
+    @Test
+    public void compactionResetsListeners() {
+        MessageView view = new MessageView(2);
+        int[] resets = {0};
+        view.addListener(new MessageView.Listener()
+        {
+            @Override
+            public void viewReset() {
+                resets[0]++;
+            }
+        });
+
+        view.append((ParsedLine) null);
+        StoredLine last = view.append((ParsedLine) null);
+        long seqBefore = view.seqAt(0);
+        while (resets[0] == 0) {
+            view.remove(last);
+            last = view.append((ParsedLine) null);
+        }
+
+        assertEquals(2, view.getLineCount());
+        assertTrue(view.firstSeq() > seqBefore);
+        assertEquals(-1, view.indexOfSeq(seqBefore));
+    }
+
+    @Test
+    public void evictOldestTakesOneLiveLine() {
+        MessageView view = new MessageView(5);
+        StoredLine a = view.append((ParsedLine) null);
+        view.append((ParsedLine) null);
+        StoredLine c = view.append((ParsedLine) null);
+        view.remove(a);
+
+        view.evictOldest();
+
+        assertEquals(1, view.size());
+        assertEquals(1, view.getLineCount());
+        assertEquals(c, view.get(0));
+    }
+
+    @Test
+    public void shrinkingKeepsNewestLiveLines() {
+        MessageView view = new MessageView(10);
+        List<StoredLine> added = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            added.add(view.append((ParsedLine) null));
+        }
+        view.remove(added.get(8));
+
+        view.setMaxLines(3);
+
+        List<StoredLine> kept = new ArrayList<>();
+        view.forEach(kept::add);
+        assertEquals(3, kept.size());
+        assertEquals(added.get(6), kept.get(0));
+        assertEquals(added.get(9), kept.get(2));
+        assertEquals(kept.size(), view.size());
+    }
+}
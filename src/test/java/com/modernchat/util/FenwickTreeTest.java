@@ -0,0 +1,119 @@
+package com.modernchat.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class FenwickTreeTest
+{
+    @Test
+    public void prefixSumsFollowPointUpdates() {
+        FenwickTree tree = new FenwickTree(8);
+        int[] values = {3, 0, 2, 5, 1, 0, 4, 2};
+        for (int i = 0; i < values.length; i++) {
+            tree.set(i, values[i]);
+        }
+
+        long expected = 0;
+        for (int end = 0; end <= values.length; end++) {
+            assertEquals(expected, tree.sumBefore(end));
+            if (end < values.length)
+                expected += values[end];
+        }
+        assertEquals(17, tree.total());
+        assertEquals(8, tree.sum(2, 5));
+        assertEquals(0, tree.sum(5, 5));
+        assertEquals(0, tree.sum(6, 2));
+
+        tree.set(3, 1);
+        assertEquals(1, tree.get(3));
+        assertEquals(6, tree.sumBefore(4));
+        assertEquals(13, tree.total());
+    }
+
+    @Test
+    public void sumBeforeClampsToSize() {
+        FenwickTree tree = new FenwickTree(4);
+        tree.set(0, 1);
+        tree.set(3, 2);
+        assertEquals(3, tree.sumBefore(100));
+    }
+
+    @Test
+    public void clearResetsEverything() {
+        FenwickTree tree = new FenwickTree(4);
+        tree.set(1, 7);
+        tree.clear();
+        assertEquals(0, tree.get(1));
+        assertEquals(0, tree.total());
+        assertEquals(0, tree.sumBefore(4));
+
+        tree.set(1, 2);
+        assertEquals(2, tree.total());
+    }
+
+    @Test
+    public void sumWrappedCrossesTheEnd() {
+        FenwickTree tree = new FenwickTree(5);
+        int[] values = {1, 2, 3, 4, 5};
+        for (int i = 0; i < values.length; i++) {
+            tree.set(i, values[i]);
+        }
+
+        assertEquals(0, tree.sumWrapped(3, 0));
+        assertEquals(9, tree.sumWrapped(3, 2));
+        // Slots 3, 4, 0, 1
+        assertEquals(12, tree.sumWrapped(3, 4));
+        assertEquals(15, tree.sumWrapped(2, 5));
+    }
+
+    @Test
+    public void searchWrappedFindsTheLineHoldingARow() {
+        // Lines of 2, 0, 3 and 1 rows stored from slot 2 of a ring of 4
+        FenwickTree tree = new FenwickTree(4);
+        tree.set(2, 2);
+        tree.set(3, 0);
+        tree.set(0, 3);
+        tree.set(1, 1);
+
+        assertEquals(0, tree.searchWrapped(2, 4, 0));
+        assertEquals(0, tree.searchWrapped(2, 4, 1));
+        // The empty line never holds a row
+        assertEquals(2, tree.searchWrapped(2, 4, 2));
+        assertEquals(2, tree.searchWrapped(2, 4, 4));
+        assertEquals(3, tree.searchWrapped(2, 4, 5));
+        assertEquals(-1, tree.searchWrapped(2, 4, 6));
+        assertEquals(-1, tree.searchWrapped(2, 0, 0));
+    }
+
+    @Test
+    public void searchWrappedMatchesLinearScan() {
+        Random random = new Random(42);
+        FenwickTree tree = new FenwickTree(64);
+        int[] values = new int[64];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(4);
+            tree.set(i, values[i]);
+        }
+
+        for (int start = 0; start < values.length; start += 7) {
+            int count = 1 + random.nextInt(values.length);
+            long total = tree.sumWrapped(start, count);
+            for (long row = 0; row <= total; row++) {
+                assertEquals(linearSearch(values, start, count, row), tree.searchWrapped(start, count, row));
+            }
+        }
+    }
+
+    private static int linearSearch(int[] values, int start, int count, long target) {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += values[(start + i) % values.length];
+            if (sum > target)
+                return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,114 @@
+package com.modernchat.util;
+
+import org.junit.Test;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.TextAttribute;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GlyphAdvancesTest
+{
+    private static final String[] SAMPLES = {
+        "",
+        "a",
+        "Hello world",
+        "Zezima: Buying rune platebody 50k!!",
+        "  leading and trailing  ",
+        "WWWWiiiill1111....",
+        "caf\u00e9 na\u00efve \u00fcber",
+        "e\u0301 combining acute",
+        "\u0645\u0631\u062d\u0628\u0627 mixed",
+        "emoji \ud83d\ude00 pair",
+    };
+
+    private static FontMetrics metrics(Font font, boolean fractional) {
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, fractional
+                ? RenderingHints.VALUE_FRACTIONALMETRICS_ON
+                : RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+            return g.getFontMetrics(font);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static void assertMatchesMetrics(FontMetrics fm) {
+        GlyphAdvances advances = GlyphAdvances.of(fm);
+        for (String s : SAMPLES) {
+            assertEquals(s, fm.stringWidth(s), advances.width(s));
+            for (int from = 0; from <= s.length(); from++) {
+                for (int to = from; to <= s.length(); to++) {
+                    assertEquals(s + " [" + from + ", " + to + ")",
+                        fm.stringWidth(s.substring(from, to)), advances.width(s, from, to));
+                }
+            }
+        }
+    }
+
+    /**
+     * The fitted prefix must fit and one more character must not. Shaped text is not monotonic
+     * in width, so this is checked instead of comparing with the longest fitting prefix.
+     */
+    private static void assertFitMatchesMetrics(FontMetrics fm) {
+        GlyphAdvances advances = GlyphAdvances.of(fm);
+        for (String s : SAMPLES) {
+            int full = fm.stringWidth(s);
+            for (int maxWidth = 1; maxWidth <= full + 2; maxWidth++) {
+                int n = advances.fit(s, 0, s.length(), maxWidth);
+                String at = s + " in " + maxWidth + " fit " + n;
+                assertTrue(at, fm.stringWidth(s.substring(0, n)) <= maxWidth);
+                assertTrue(at, n == s.length() || fm.stringWidth(s.substring(0, n + 1)) > maxWidth);
+            }
+        }
+    }
+
+    @Test
+    public void widthMatchesStringWidth() {
+        assertMatchesMetrics(metrics(new Font(Font.DIALOG, Font.PLAIN, 12), false));
+        assertMatchesMetrics(metrics(new Font(Font.SANS_SERIF, Font.BOLD, 16), false));
+        assertMatchesMetrics(metrics(new Font(Font.MONOSPACED, Font.PLAIN, 11), false));
+    }
+
+    @Test
+    public void widthMatchesStringWidthWithFractionalMetrics() {
+        assertMatchesMetrics(metrics(new Font(Font.DIALOG, Font.PLAIN, 13), true));
+    }
+
+    @Test
+    public void widthMatchesStringWidthWithKerning() {
+        Font kerned = new Font(Font.SERIF, Font.PLAIN, 14)
+            .deriveFont(Collections.singletonMap(TextAttribute.KERNING, TextAttribute.KERNING_ON));
+        assertMatchesMetrics(metrics(kerned, false));
+    }
+
+    @Test
+    public void fitMatchesStringWidth() {
+        assertFitMatchesMetrics(metrics(new Font(Font.DIALOG, Font.PLAIN, 12), false));
+        assertFitMatchesMetrics(metrics(new Font(Font.DIALOG, Font.PLAIN, 13), true));
+    }
+
+    @Test
+    public void fitIsBoundedByTheRange() {
+        FontMetrics fm = metrics(new Font(Font.DIALOG, Font.PLAIN, 12), false);
+        GlyphAdvances advances = GlyphAdvances.of(fm);
+        String s = "abcdef";
+        assertEquals(2, advances.fit(s, 1, 3, Integer.MAX_VALUE));
+        assertEquals(0, advances.fit(s, 1, 3, 0));
+        assertEquals(0, advances.fit(s, 1, 3, -5));
+    }
+
+    @Test
+    public void tablesAreSharedPerFontAndContext() {
+        Font font = new Font(Font.DIALOG, Font.PLAIN, 12);
+        assertSame(GlyphAdvances.of(metrics(font, false)), GlyphAdvances.of(metrics(font, false)));
+    }
+}
@@ -0,0 +1,255 @@
+package com.modernchat.util;
+
+import org.junit.Test;
+
+import java.awt.Color;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+public class JagexTagTokenizerTest
+{
+    private static final Color BASE = Color.WHITE;
+
+    private static final String[] SAMPLES = {
+        "",
+        "plain text",
+        "<col=ff0000>red</col> back",
+        "<COL=00FF00>upper</COL>",
+        "<col=f00>short</col>",
+        "<col=#0000ff>hash</col>",
+        "<col=80ff0000>alpha</col>",
+        "<col=zzz>bad colour</col>",
+        "<col>empty</col>",
+        "<col=ff0000><col=00ff00>nested</col>outer</col>base",
+        "</col>stray close",
+        "a<lt>b<gt>c <LT>tag<GT>",
+        "first<br>second<BR>third",
+        "<br>leading break",
+        "<img=2>Zezima",
+        "<IMG=12> upper image",
+        "<img=x>not an image",
+        "<u>underline</u> and <shad=000000>shadow</shad>",
+        "unterminated <col=ff0000",
+        "trailing <",
+        "<col=ffff00>[Clan]</col> <img=5>Name: hi <lt>3",
+    };
+
+    /**
+     * The tag loop of MessageParseService before the tokenizer, reduced to the events it emits.
+     */
+    private static List<String> parseWithOldLoop(String s) {
+        List<String> out = new ArrayList<>();
+        StringBuilder buf = new StringBuilder();
+        Deque<Color> stack = new ArrayDeque<>();
+        Color cur = BASE;
+
+        for (int i = 0; i < s.length(); ) {
+            char ch = s.charAt(i);
+            if (ch == '<') {
+                int j = s.indexOf('>', i + 1);
+                if (j < 0)
+                    break;
+
+                String tagRaw = s.substring(i + 1, j);
+                String tagLower = tagRaw.toLowerCase(Locale.ROOT);
+
+                if (tagLower.equals("lt")) {
+                    buf.append('<');
+                    i = j + 1;
+                    continue;
+                }
+                if (tagLower.equals("gt")) {
+                    buf.append('>');
+                    i = j + 1;
+                    continue;
+                }
+
+                if (buf.length() > 0) {
+                    addText(out, buf, cur);
+                    buf.setLength(0);
+                }
+
+                if (tagLower.startsWith("col")) {
+                    stack.push(cur);
+                    cur = ColorUtil.parseHexColor(tagRaw.substring(tagRaw.contains("=") ? 4 : 3), cur);
+                    i = j + 1;
+                    continue;
+                } else if (tagLower.equals("/col")) {
+                    cur = stack.isEmpty() ? BASE : stack.pop();
+                    i = j + 1;
+                    continue;
+                } else if (tagLower.equals("br")) {
+                    out.add("br");
+                    i = j + 1;
+                    continue;
+                } else if (tagLower.startsWith("img")) {
+                    try {
+                        int id = Integer.parseInt(tagRaw.substring(tagRaw.contains("=") ? 4 : 3));
+                        out.add("img " + id + " " + hex(cur));
+                        i = j + 1;
+                        continue;
+                    } catch (Exception ignored) {
+                        // treat as unknown tag
+                    }
+                }
+
+                buf.append('<').append(tagRaw).append('>');
+                i = j + 1;
+            } else {
+                buf.append(ch);
+                i++;
+            }
+        }
+
+        if (buf.length() > 0)
+            addText(out, buf, cur);
+        return out;
+    }
+
+    /**
+     * The same events driven by the tokenizer, as MessageParseService does now.
+     */
+    private static List<String> parseWithTokenizer(String s) {
+        List<String> out = new ArrayList<>();
+        StringBuilder buf = new StringBuilder();
+        Deque<Color> stack = new ArrayDeque<>();
+        Color cur = BASE;
+
+        JagexTagTokenizer tok = new JagexTagTokenizer().reset(s);
+        for (int t = tok.next(); t != JagexTagTokenizer.END; t = tok.next()) {
+            switch (t) {
+                case JagexTagTokenizer.TEXT:
+                case JagexTagTokenizer.UNKNOWN:
+                    buf.append(s, tok.getStart(), tok.getEnd());
+                    continue;
+                case JagexTagTokenizer.LT:
+                    buf.append('<');
+                    continue;
+                case JagexTagTokenizer.GT:
+                    buf.append('>');
+                    continue;
+            }
+
+            if (buf.length() > 0) {
+                addText(out, buf, cur);
+                buf.setLength(0);
+            }
+
+            switch (t) {
+                case JagexTagTokenizer.COL:
+                    stack.push(cur);
+                    if (tok.hasColor())
+                        cur = new Color(tok.getColor(), true);
+                    break;
+                case JagexTagTokenizer.END_COL:
+                    cur = stack.isEmpty() ? BASE : stack.pop();
+                    break;
+                case JagexTagTokenizer.BR:
+                    out.add("br");
+                    break;
+                case JagexTagTokenizer.IMG:
+                    out.add("img " + tok.getImageId() + " " + hex(cur));
+                    break;
+            }
+        }
+
+        if (buf.length() > 0)
+            addText(out, buf, cur);
+        return out;
+    }
+
+    /**
+     * Adds a text event, joined with the previous one when it has the same colour. The old loop
+     * also split text at unknown tags, which draws the same.
+     */
+    private static void addText(List<String> out, CharSequence text, Color color) {
+        String prefix = "text " + hex(color) + " ";
+        int last = out.size() - 1;
+        if (last >= 0 && out.get(last).startsWith(prefix))
+            out.set(last, out.get(last) + text);
+        else
+            out.add(prefix + text);
+    }
+
+    private static String hex(Color color) {
+        return String.format("%08x", color.getRGB());
+    }
+
+    @Test
+    public void matchesTheOldParser() {
+        for (String s : SAMPLES) {
+            assertEquals(s, parseWithOldLoop(s), parseWithTokenizer(s));
+        }
+    }
+
+    @Test
+    public void reportsTokenRanges() {
+        String s = "ab<col=ff0000>cd</col>";
+        JagexTagTokenizer tok = new JagexTagTokenizer().reset(s);
+
+        assertEquals(JagexTagTokenizer.TEXT, tok.next());
+        assertEquals("ab", s.substring(tok.getStart(), tok.getEnd()));
+        assertEquals(JagexTagTokenizer.COL, tok.next());
+        assertEquals(0xFFFF0000, tok.getColor());
+        assertEquals(JagexTagTokenizer.TEXT, tok.next());
+        assertEquals("cd", s.substring(tok.getStart(), tok.getEnd()));
+        assertEquals(JagexTagTokenizer.END_COL, tok.next());
+        assertEquals(JagexTagTokenizer.END, tok.next());
+    }
+
+    @Test
+    public void firstImageIdMatchesTheOldPattern() {
+        assertEquals(-1, JagexTagTokenizer.firstImageId(null));
+        assertEquals(-1, JagexTagTokenizer.firstImageId(""));
+        assertEquals(-1, JagexTagTokenizer.firstImageId("Zezima"));
+        assertEquals(2, JagexTagTokenizer.firstImageId("<img=2>Zezima"));
+        assertEquals(41, JagexTagTokenizer.firstImageId("<col=ff0000><img=41></col>Name<img=3>"));
+    }
+
+    @Test
+    public void firstImageIdFindsTagsAfterAStrayBracket() {
+        String[] samples = {
+            "a < b <img=7>Name",
+            "a<b<img=8>",
+            "<img=x><img=9>",
+            "<IMG=3><img=4>",
+            "<img=>",
+            "<img=12",
+            "<img=99999999999>",
+        };
+        Pattern old = Pattern.compile("<img=(\\d+)>");
+        for (String s : samples) {
+            Matcher m = old.matcher(s);
+            int expected = m.find() ? parseOrMinusOne(m.group(1)) : -1;
+            assertEquals(s, expected, JagexTagTokenizer.firstImageId(s));
+        }
+    }
+
+    private static int parseOrMinusOne(String digits) {
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @Test
+    public void unescapeMatchesTheOldReplace() {
+        String[] samples = {
+            "no tags",
+            "a<lt>b<gt>c",
+            "<col=ff0000>keep</col> <lt>3",
+            "trailing <gt",
+        };
+        for (String s : samples) {
+            assertEquals(s, s.replace("<lt>", "<").replace("<gt>", ">"), JagexTagTokenizer.unescape(s));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.modernchat.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferTest
+{
+    @Test
+    public void appendAssignsIncreasingSequences() {
+        RingBuffer<String> ring = new RingBuffer<>(3);
+        assertTrue(ring.isEmpty());
+        assertEquals(0, ring.append("a"));
+        assertEquals(1, ring.append("b"));
+        assertEquals(2, ring.append("c"));
+        assertTrue(ring.isFull());
+        assertEquals("a", ring.first());
+        assertEquals("c", ring.last());
+        assertEquals(3, ring.nextSeq());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void appendToFullBufferFails() {
+        RingBuffer<String> ring = new RingBuffer<>(1);
+        ring.append("a");
+        ring.append("b");
+    }
+
+    @Test
+    public void wrapsAroundAfterEviction() {
+        RingBuffer<String> ring = new RingBuffer<>(3);
+        ring.append("a");
+        ring.append("b");
+        ring.append("c");
+
+        assertEquals("a", ring.removeFirst());
+        assertEquals(3, ring.append("d"));
+        assertEquals("b", ring.removeFirst());
+        assertEquals(4, ring.append("e"));
+
+        assertEquals("c", ring.get(0));
+        assertEquals("d", ring.get(1));
+        assertEquals("e", ring.get(2));
+        assertEquals(2, ring.firstSeq());
+        assertEquals(2, ring.seqAt(0));
+        assertEquals(4, ring.seqAt(2));
+        // The newest elements reuse the slots of the evicted ones
+        assertEquals(2, ring.slotOf(0));
+        assertEquals(0, ring.slotOf(1));
+        assertEquals(1, ring.slotOf(2));
+    }
+
+    @Test
+    public void indexOfSeqSkipsEvictedAndFutureSequences() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4);
+        for (int i = 0; i < 10; i++) {
+            if (ring.isFull())
+                ring.removeFirst();
+            ring.append(i);
+        }
+
+        assertEquals(-1, ring.indexOfSeq(5));
+        assertEquals(0, ring.indexOfSeq(6));
+        assertEquals(3, ring.indexOfSeq(9));
+        assertEquals(-1, ring.indexOfSeq(10));
+        assertEquals(Integer.valueOf(8), ring.get(ring.indexOfSeq(8)));
+    }
+
+    @Test
+    public void shrinkingKeepsNewestAndTheirSequences() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4);
+        for (int i = 0; i < 6; i++) {
+            if (ring.isFull())
+                ring.removeFirst();
+            ring.append(i);
+        }
+
+        ring.setCapacity(2);
+        assertEquals(2, ring.capacity());
+        assertEquals(2, ring.size());
+        assertEquals(Integer.valueOf(4), ring.first());
+        assertEquals(Integer.valueOf(5), ring.last());
+        assertEquals(4, ring.firstSeq());
+        assertEquals(1, ring.indexOfSeq(5));
+        assertEquals(-1, ring.indexOfSeq(3));
+    }
+
+    @Test
+    public void growingKeepsOrderAndSequences() {
+        RingBuffer<Integer> ring = new RingBuffer<>(3);
+        for (int i = 0; i < 5; i++) {
+            if (ring.isFull())
+                ring.removeFirst();
+            ring.append(i);
+        }
+
+        ring.setCapacity(5);
+        assertFalse(ring.isFull());
+        assertEquals(5, ring.append(5));
+        assertEquals(6, ring.append(6));
+        for (int i = 0; i < ring.size(); i++) {
+            assertEquals(Integer.valueOf(i + 2), ring.get(i));
+            assertEquals(i + 2, ring.seqAt(i));
+        }
+    }
+
+    @Test
+    public void clearNeverReusesSequences() {
+        RingBuffer<String> ring = new RingBuffer<>(2);
+        ring.append("a");
+        ring.append("b");
+        ring.clear();
+
+        assertTrue(ring.isEmpty());
+        assertEquals(-1, ring.indexOfSeq(1));
+        assertEquals(2, ring.append("c"));
+        assertEquals(0, ring.indexOfSeq(2));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutsideSizeFails() {
+        RingBuffer<String> ring = new RingBuffer<>(2);
+        ring.append("a");
+        ring.get(1);
+    }
+}
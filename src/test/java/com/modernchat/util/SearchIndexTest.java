@@ -0,0 +1,114 @@
+package com.modernchat.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SearchIndexTest
+{
+    private SearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new SearchIndex();
+        index.add(0, "Zezima Buying rune platebody");
+        index.add(1, "Lynx Titan Selling rune scimitar");
+        index.add(2, "Zezima anyone got a rune scimitar?");
+        index.add(3, "Woox runecrafting is slow, rune rune rune");
+    }
+
+    @Test
+    public void matchesWordsCaseInsensitively() {
+        assertArrayEquals(new long[]{0, 2}, index.search("zezima"));
+        assertArrayEquals(new long[]{1}, index.search("SELLING"));
+        assertArrayEquals(new long[0], index.search("dragon"));
+    }
+
+    @Test
+    public void requiresEveryTerm() {
+        assertArrayEquals(new long[]{1, 2}, index.search("rune scimitar"));
+        assertArrayEquals(new long[]{2}, index.search("zezima scimitar"));
+        assertArrayEquals(new long[0], index.search("zezima selling"));
+    }
+
+    @Test
+    public void lastTermMatchesAsPrefix() {
+        assertArrayEquals(new long[]{0, 1, 2, 3}, index.search("run"));
+        assertArrayEquals(new long[]{1, 2}, index.search("rune sci"));
+        // Earlier terms must match whole words
+        assertArrayEquals(new long[0], index.search("sci rune"));
+    }
+
+    @Test
+    public void shortLastTermMatchesExactly() {
+        assertArrayEquals(new long[]{2}, index.search("a"));
+        assertArrayEquals(new long[0], index.search("r"));
+    }
+
+    @Test
+    public void blankQueryMatchesNothing() {
+        assertArrayEquals(new long[0], index.search(""));
+        assertArrayEquals(new long[0], index.search(" ,.? "));
+    }
+
+    @Test
+    public void repeatedTokensArePostedOnce() {
+        SearchIndex single = new SearchIndex();
+        single.add(7, "rune rune RUNE");
+        assertEquals(1, single.getTermCount());
+        assertEquals(1, single.getPostingCount());
+        assertArrayEquals(new long[]{7}, single.search("rune"));
+    }
+
+    @Test
+    public void removingOldestDropsItsPostings() {
+        long postings = index.getPostingCount();
+        index.remove(0, "Zezima Buying rune platebody");
+
+        assertArrayEquals(new long[]{2}, index.search("zezima"));
+        assertArrayEquals(new long[0], index.search("platebody"));
+        assertArrayEquals(new long[]{1, 2, 3}, index.search("rune"));
+        assertEquals(postings - 4, index.getPostingCount());
+    }
+
+    @Test
+    public void removingFromTheMiddleKeepsTheRest() {
+        long postings = index.getPostingCount();
+        index.remove(2, "Zezima anyone got a rune scimitar?");
+
+        assertArrayEquals(new long[]{0}, index.search("zezima"));
+        assertArrayEquals(new long[]{0, 1, 3}, index.search("rune"));
+        assertArrayEquals(new long[]{1}, index.search("scimitar"));
+        assertArrayEquals(new long[0], index.search("anyone"));
+        assertEquals(postings - 6, index.getPostingCount());
+    }
+
+    @Test
+    public void addAfterRemoveKeepsOrder() {
+        index.remove(0, "Zezima Buying rune platebody");
+        index.remove(1, "Lynx Titan Selling rune scimitar");
+        index.add(4, "Zezima selling rune platebody");
+
+        assertArrayEquals(new long[]{2, 4}, index.search("zezima"));
+        assertArrayEquals(new long[]{2, 3, 4}, index.search("rune"));
+        assertArrayEquals(new long[]{4}, index.search("sell"));
+    }
+
+    @Test
+    public void termCountTracksDistinctWords() {
+        SearchIndex fresh = new SearchIndex();
+        fresh.add(0, "one two");
+        fresh.add(1, "two three");
+        assertEquals(3, fresh.getTermCount());
+
+        fresh.remove(0, "one two");
+        assertEquals(2, fresh.getTermCount());
+
+        fresh.clear();
+        assertEquals(0, fresh.getTermCount());
+        assertEquals(0, fresh.getPostingCount());
+        assertArrayEquals(new long[0], fresh.search("two"));
+    }
+}